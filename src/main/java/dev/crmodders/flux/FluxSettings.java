@@ -1,8 +1,10 @@
 package dev.crmodders.flux;
 
+import dev.crmodders.flux.engine.GcPolicy;
 import dev.crmodders.flux.localization.Language;
 import finalforeach.cosmicreach.settings.BooleanSetting;
 import finalforeach.cosmicreach.settings.IntSetting;
+import finalforeach.cosmicreach.settings.StringSetting;
 
 /**
  * A Class that stores all Flux Settings
@@ -12,6 +14,10 @@ public class FluxSettings {
 
     public static final IntSetting AntiAliasing = new IntSetting("msaa", 4);
     public static final BooleanSetting EnabledVanillaMods = new BooleanSetting("enableVanillaMods", true);
+    public static final StringSetting LoaderGcPolicy = new StringSetting("loaderGcPolicyName", GcPolicy.THRESHOLD.name());
+    public static final IntSetting LoaderGcThreshold = new IntSetting("loaderGcThreshold", 75);
+    public static final BooleanSetting StartupTracing = new BooleanSetting("startupTracing", false);
+    public static final BooleanSetting AtlasCache = new BooleanSetting("atlasCache", true);
     public static Language SelectedLanguage;
 
 }
@@ -0,0 +1,24 @@
+package dev.crmodders.flux.assets;
+
+/**
+ * When an asset queued with {@link FluxGameAssetLoader#loadResource(dev.crmodders.flux.tags.ResourceLocation, Class, AssetPriority)}
+ * is loaded
+ */
+public enum AssetPriority {
+
+    /**
+     * Loaded while the loading screen is shown, the main menu waits for these
+     */
+    CRITICAL,
+
+    /**
+     * Streamed in the background once loading finished
+     */
+    DEFERRED,
+
+    /**
+     * Streamed in the background after all deferred assets
+     */
+    LOW
+
+}
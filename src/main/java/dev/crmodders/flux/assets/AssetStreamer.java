@@ -0,0 +1,93 @@
+package dev.crmodders.flux.assets;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import dev.crmodders.flux.events.OnAssetStreamingFinishedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static dev.crmodders.flux.FluxRegistries.EVENT_BUS;
+
+/**
+ * Streams deferred and low priority assets into the {@link AssetManager} after
+ * loading finished. Assets are handed to the manager in small batches, so an
+ * asset requested synchronously in the meantime only waits for the current batch
+ * instead of everything queued before it
+ */
+public class AssetStreamer {
+
+    public static final int BATCH_SIZE = 16;
+    public static final int FRAME_BUDGET_MILLIS = 4;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("FluxAPI / AssetStreamer");
+
+    private final AssetManager manager;
+    private final Map<AssetPriority, Queue<AssetDescriptor<?>>> queues = new EnumMap<>(AssetPriority.class);
+    private volatile boolean finished;
+
+    public AssetStreamer(AssetManager manager) {
+        this.manager = manager;
+        queues.put(AssetPriority.DEFERRED, new ConcurrentLinkedQueue<>());
+        queues.put(AssetPriority.LOW, new ConcurrentLinkedQueue<>());
+    }
+
+    public void queue(AssetDescriptor<?> asset, AssetPriority priority) {
+        if(priority == AssetPriority.CRITICAL) {
+            throw new IllegalArgumentException("Critical assets are not streamed");
+        }
+        queues.get(priority).add(asset);
+        finished = false;
+    }
+
+    /**
+     * @return true if nothing is waiting to be streamed
+     */
+    public boolean isFinished() {
+        for(Queue<AssetDescriptor<?>> queue : queues.values()) {
+            if(!queue.isEmpty()) return false;
+        }
+        return manager.isFinished();
+    }
+
+    /**
+     * Streams assets for at most {@link #FRAME_BUDGET_MILLIS}, has to be called
+     * every frame from the render thread
+     */
+    public void update() {
+        if(finished) {
+            return;
+        }
+
+        if(manager.isFinished() && !queueNextBatch()) {
+            finished = true;
+            LOGGER.info("Finished streaming assets");
+            EVENT_BUS.post(new OnAssetStreamingFinishedEvent());
+            return;
+        }
+
+        try {
+            manager.update(FRAME_BUDGET_MILLIS);
+        } catch (RuntimeException e) {
+            LOGGER.error("Cannot stream asset", e);
+        }
+    }
+
+    private boolean queueNextBatch() {
+        int queued = 0;
+        for(Queue<AssetDescriptor<?>> queue : queues.values()) {
+            AssetDescriptor<?> asset;
+            while(queued < BATCH_SIZE && (asset = queue.poll()) != null) {
+                manager.load(asset);
+                queued++;
+            }
+            if(queued != 0) break;
+        }
+        return queued != 0;
+    }
+
+}
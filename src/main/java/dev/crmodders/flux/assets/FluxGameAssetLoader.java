@@ -1,16 +1,20 @@
 package dev.crmodders.flux.assets;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.FileHandleResolver;
 import com.badlogic.gdx.files.FileHandle;
 import de.pottgames.tuningfork.SoundBuffer;
+import dev.crmodders.flux.engine.StartupTracer;
 import dev.crmodders.flux.localization.files.LanguageFileVersion1;
 import dev.crmodders.flux.tags.ResourceLocation;
 import finalforeach.cosmicreach.io.SaveLocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static dev.crmodders.flux.engine.StartupTracer.TRACER;
+
 public class FluxGameAssetLoader {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("FluxAPI / AssetLoader");
@@ -20,6 +24,12 @@ public class FluxGameAssetLoader {
     }
 
     public static FileHandle locateAsset(ResourceLocation location) {
+        try (StartupTracer.Span ignored = TRACER.begin("asset", () -> "locate " + location)) {
+            return locateAssetUntraced(location);
+        }
+    }
+
+    private static FileHandle locateAssetUntraced(ResourceLocation location) {
         FileHandle classpathLocationFile = Gdx.files.classpath("assets/%s/%s".formatted(location.namespace, location.name));
         if (classpathLocationFile.exists()) {
             LOGGER.info("Loading \u001B[35m\"{}\"\u001B[37m from Java Mod \u001B[32m\"{}\"\u001B[37m", location.name, location.namespace);
@@ -45,12 +55,14 @@ public class FluxGameAssetLoader {
     public static final FluxGameAssetLoader LOADER = new FluxGameAssetLoader();
 
     private final AssetManager assetManager;
+    private final AssetStreamer streamer;
 
     public FluxGameAssetLoader() {
         FileHandleResolver resolver = FluxGameAssetLoader::locateAsset;
         assetManager = new AssetManager(resolver);
         assetManager.setLoader(SoundBuffer.class, new TuningForkLoader(resolver));
         assetManager.setLoader(LanguageFileVersion1.class, new LanguageFileLoader(resolver));
+        streamer = new AssetStreamer(assetManager);
     }
 
     public <T> void load(String fileName, Class<T> assetClass) {
@@ -58,13 +70,15 @@ public class FluxGameAssetLoader {
     }
 
     public <T> T loadSync(String fileName, Class<T> assetClass) {
-        assetManager.load(fileName, assetClass);
-        return assetManager.finishLoadingAsset(fileName);
+        try (StartupTracer.Span ignored = TRACER.begin("asset", () -> "load " + fileName)) {
+            assetManager.load(fileName, assetClass);
+            return assetManager.finishLoadingAsset(fileName);
+        }
     }
 
     public <T> T get(String fileName, Class<T> assetClass) {
         if(!assetManager.isLoaded(fileName)) {
-            LOGGER.error("Asset not loaded {} ({}) loading now", fileName, assetClass.getSimpleName());
+            logNotLoaded(fileName, assetClass);
             return loadSync(fileName, assetClass);
         }
         return assetManager.get(fileName);
@@ -78,14 +92,33 @@ public class FluxGameAssetLoader {
         assetManager.load(location.toString(), assetClass);
     }
 
+    /**
+     * Queues an asset, critical assets are loaded before the main menu is shown,
+     * all others are streamed in the background after loading finished. Assets
+     * requested with {@link #getResource(ResourceLocation, Class)} before they were
+     * streamed are loaded right away
+     * @param location the asset
+     * @param assetClass the type of the asset
+     * @param priority when the asset is loaded
+     */
+    public <T> void loadResource(ResourceLocation location, Class<T> assetClass, AssetPriority priority) {
+        if(priority == AssetPriority.CRITICAL) {
+            loadResource(location, assetClass);
+        } else {
+            streamer.queue(new AssetDescriptor<>(location.toString(), assetClass), priority);
+        }
+    }
+
     public <T> T loadResourceSync(ResourceLocation location, Class<T> assetClass) {
-        assetManager.load(location.toString(), assetClass);
-        return assetManager.finishLoadingAsset(location.toString());
+        try (StartupTracer.Span ignored = TRACER.begin("asset", () -> "load " + location)) {
+            assetManager.load(location.toString(), assetClass);
+            return assetManager.finishLoadingAsset(location.toString());
+        }
     }
 
     public <T> T getResource(ResourceLocation location, Class<T> assetClass) {
         if(!assetManager.isLoaded(location.toString())) {
-            LOGGER.error("Asset not loaded {} ({}) loading now", location, assetClass.getSimpleName());
+            logNotLoaded(location.toString(), assetClass);
             return loadResourceSync(location, assetClass);
         }
         return assetManager.get(location.toString(), assetClass);
@@ -98,4 +131,16 @@ public class FluxGameAssetLoader {
     public AssetManager getAssetManager() {
         return assetManager;
     }
+
+    public AssetStreamer getStreamer() {
+        return streamer;
+    }
+
+    private void logNotLoaded(String fileName, Class<?> assetClass) {
+        if(streamer.isFinished()) {
+            LOGGER.error("Asset not loaded {} ({}) loading now", fileName, assetClass.getSimpleName());
+        } else {
+            LOGGER.debug("Asset not streamed yet {} ({}) loading now", fileName, assetClass.getSimpleName());
+        }
+    }
 }
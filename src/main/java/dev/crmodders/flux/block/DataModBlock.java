@@ -8,6 +8,8 @@ import dev.crmodders.flux.tags.ResourceLocation;
 
 import java.util.LinkedHashMap;
 
+import static dev.crmodders.flux.engine.blocks.AtlasCache.CACHE;
+
 /**
  * This class allows loading regular Json files
  * as IModBlocks
@@ -31,7 +33,7 @@ public class DataModBlock implements IModBlock {
     }
 
     public DataModBlock(String blockName, ResourceLocation json) {
-        this(blockName, json.locate().readString());
+        this(blockName, CACHE.readString(json));
         this.debugResourceLocation = json;
     }
 
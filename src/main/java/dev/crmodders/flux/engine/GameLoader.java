@@ -16,14 +16,12 @@ import com.badlogic.gdx.utils.viewport.Viewport;
 import dev.crmodders.flux.FluxConstants;
 import dev.crmodders.flux.FluxSettings;
 import dev.crmodders.flux.engine.blocks.BlockLoader;
-import dev.crmodders.flux.engine.stages.*;
 import dev.crmodders.flux.events.OnPreLoadAssetsEvent;
 import dev.crmodders.flux.localization.LanguageManager;
 import dev.crmodders.flux.localization.TranslationKey;
 import dev.crmodders.flux.localization.TranslationLocale;
 import dev.crmodders.flux.ui.CosmicReachFont;
 import dev.crmodders.flux.ui.TranslationParameters;
-import finalforeach.cosmicreach.GameSingletons;
 import finalforeach.cosmicreach.gamestates.GameState;
 import finalforeach.cosmicreach.gamestates.PrealphaPreamble;
 import finalforeach.cosmicreach.settings.Preferences;
@@ -32,11 +30,6 @@ import org.lwjgl.opengl.GL11;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.CountDownLatch;
-
 import static dev.crmodders.flux.FluxRegistries.EVENT_BUS;
 import static dev.crmodders.flux.assets.FluxGameAssetLoader.LOADER;
 
@@ -45,6 +38,10 @@ public class GameLoader extends GameState {
     public static final Logger LOGGER = LoggerFactory.getLogger("FluxAPI / GameLoader");
 
     private static final TranslationKey TEXT_RAM_USAGE = new TranslationKey("fluxapi:loading_menu.ram_usage");
+    /**
+     * Shown while no stage is running, its range is always 0
+     */
+    private static final ProgressTracker NO_PROGRESS = new ProgressTracker();
 
     public Stage gdxStage;
     public OrthographicCamera gdxStageCamera;
@@ -66,9 +63,13 @@ public class GameLoader extends GameState {
     public Label progressBarText3;
     public ProgressBar progressBar3;
 
-    private final Queue<LoadStage> stages = new LinkedList<>();
-    private final Queue<Runnable> glQueue = new LinkedList<>();
+    public LoadingEngine engine;
 
+    /**
+     * @deprecated use {@link LoadingEngine#blockLoader} of {@link #engine}, this
+     * field will be removed in the next release
+     */
+    @Deprecated
     public BlockLoader blockLoader;
 
     @Subscribe
@@ -87,9 +88,8 @@ public class GameLoader extends GameState {
         gdxStageCamera.position.set(0, 0, 0);
         gdxStageViewport.apply(false);
 
-        // create singletons
-        blockLoader = new BlockLoader();
-        GameSingletons.blockModelInstantiator = blockLoader.factory;
+        engine = new LoadingEngine();
+        blockLoader = engine.blockLoader;
 
         // register to eventbus
         EVENT_BUS.register(this);
@@ -127,7 +127,6 @@ public class GameLoader extends GameState {
         progressBar1 = new ProgressBar(0, 1, 1, false, progressBarStyle);
         progressBar1.setSize(500, 40);
         progressBar1.setPosition(0, -60, Align.center);
-        progressBar1.setUserObject(progressBarText1);
         gdxStage.addActor(progressBar1);
 
         progressBarText2 = new Label("", labelStyle);
@@ -138,7 +137,6 @@ public class GameLoader extends GameState {
         progressBar2 = new ProgressBar(0, 1, 1, false, progressBarStyle);
         progressBar2.setSize(500, 40);
         progressBar2.setPosition(0, -120, Align.center);
-        progressBar2.setUserObject(progressBarText2);
         gdxStage.addActor(progressBar2);
 
         progressBarText3 = new Label("", labelStyle);
@@ -149,7 +147,6 @@ public class GameLoader extends GameState {
         progressBar3 = new ProgressBar(0, 1, 1, false, progressBarStyle);
         progressBar3.setSize(500, 40);
         progressBar3.setPosition(0, -180, Align.center);
-        progressBar3.setUserObject(progressBarText3);
         gdxStage.addActor(progressBar3);
 
         // select flux language
@@ -165,16 +162,8 @@ public class GameLoader extends GameState {
         LanguageManager.updateLabels(gdxStage);
 
         // setup loading stages
-        addStage(new LoadingAssets());
-        addStage(new PreInitialize());
-        addStage(new Initialize());
-        addStage(new LoadingCosmicReach());
-        addStage(new PostInitialize());
-
-        // setup loading thread
-        Thread loadingThread = new Thread(this::gameLoaderThread, "GameLoader");
-        loadingThread.setUncaughtExceptionHandler(this::uncaughtException);
-        loadingThread.start();
+        engine.addDefaultStages();
+        engine.start();
     }
 
     @Override
@@ -191,19 +180,17 @@ public class GameLoader extends GameState {
         }
         LanguageManager.updateLabel(ramUsageText, (TranslationParameters) ramUsageText.getUserObject());
 
-        long endTime = System.currentTimeMillis() + 50;
-        while (!glQueue.isEmpty() && System.currentTimeMillis() < endTime) {
-            Runnable glTask = glQueue.poll();
-            if(glTask != null) {
-                glTask.run();
-            }
-        }
+        engine.update();
+        LoadStage shownStage = engine.getShownStage();
+        showProgress(engine.progress1, progressBar1, progressBarText1);
+        showProgress(shownStage == null ? NO_PROGRESS : shownStage.progress2, progressBar2, progressBarText2);
+        showProgress(shownStage == null ? NO_PROGRESS : shownStage.progress3, progressBar3, progressBarText3);
 
         if(FluxConstants.FluxHasLoaded) {
-            if(blockLoader.errors.isEmpty())
+            if(engine.blockLoader.errors.isEmpty())
                 switchToGameState(new PrealphaPreamble());
             else
-                switchToGameState(new BlockErrorScreen(blockLoader, new PrealphaPreamble()));
+                switchToGameState(new BlockErrorScreen(engine.blockLoader, new PrealphaPreamble()));
         }
 
         super.render();
@@ -220,92 +207,91 @@ public class GameLoader extends GameState {
         gdxStageViewport.update(width, height, false);
     }
 
-    private void gameLoaderThread() {
-        setupProgressBar(progressBar1, stages.size());
-        while(!stages.isEmpty()) {
-            LoadStage stage = stages.poll();
-            incrementProgress(progressBar1, LanguageManager.string(stage.title));
-            stage.doStage();
-
-            System.gc();
-
-            CountDownLatch glLock = new CountDownLatch(1);
-            List<Runnable> glTasks = stage.getGlTasks();
-            glQueue.addAll(glTasks);
-            glQueue.add( glLock::countDown );
-
-            try {
-                glLock.await();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-        FluxConstants.FluxHasLoaded = true;
-    }
-
-    private void uncaughtException(Thread t, Throwable e) {
-        LOGGER.error("Thread '{}' threw an Exception", t.getName(), e);
-    }
-
+    /**
+     * @deprecated use {@link LoadingEngine#addStage(LoadStage)} of {@link #engine},
+     * this will be removed in the next release
+     */
+    @Deprecated
     public void addStage(LoadStage stage) {
-        stages.add(stage);
-        stage.initialize(this);
+        engine.addStage(stage);
     }
 
+    /**
+     * @deprecated use the {@link ProgressTracker}s of your {@link LoadStage} or
+     * of {@link #engine}, this will be removed in the next release
+     */
+    @Deprecated
     public void setupProgressBar(ProgressBar bar, int range) {
-        Label text = (Label) bar.getUserObject();
-        text.setUserObject(null);
-        text.setText("");
-        bar.setRange(0, range);
-        bar.setValue(0);
-        text.setVisible(range != 0);
-        bar.setVisible(range != 0);
+        getProgress(bar).setup(range);
     }
 
+    /**
+     * @deprecated use the {@link ProgressTracker}s of your {@link LoadStage} or
+     * of {@link #engine}, this will be removed in the next release
+     */
+    @Deprecated
     public void setupProgressBar(ProgressBar bar, int range, TranslationKey key) {
-        Label text = (Label) bar.getUserObject();
-        TranslationParameters parameters = new TranslationParameters.Builder(key).withProgressBar(bar).build();
-        text.setUserObject(parameters);
-        bar.setRange(0, range);
-        bar.setValue(0);
-        LanguageManager.updateLabel(text, parameters);
-        text.setVisible(range != 0);
-        bar.setVisible(range != 0);
+        getProgress(bar).setup(range, key);
     }
 
+    /**
+     * @deprecated use the {@link ProgressTracker}s of your {@link LoadStage} or
+     * of {@link #engine}, this will be removed in the next release
+     */
+    @Deprecated
     public void setupProgressBar(ProgressBar bar, int range, String str) {
-        Label text = (Label) bar.getUserObject();
-        text.setUserObject(null);
-        text.setText(str);
-        bar.setRange(0, range);
-        bar.setValue(0);
-        text.setVisible(range != 0);
-        bar.setVisible(range != 0);
+        getProgress(bar).setup(range, str);
     }
 
+    /**
+     * @deprecated use the {@link ProgressTracker}s of your {@link LoadStage} or
+     * of {@link #engine}, this will be removed in the next release
+     */
+    @Deprecated
     public void incrementProgress(ProgressBar bar) {
-        Label text = (Label) bar.getUserObject();
-        if(text.getUserObject() != null) {
-            TranslationParameters parameters = (TranslationParameters) text.getUserObject();
-            bar.setValue(bar.getValue() + 1);
-            LanguageManager.updateLabel(text, parameters);
-        }
+        getProgress(bar).increment();
     }
 
+    /**
+     * @deprecated use the {@link ProgressTracker}s of your {@link LoadStage} or
+     * of {@link #engine}, this will be removed in the next release
+     */
+    @Deprecated
     public void incrementProgress(ProgressBar bar, TranslationKey key) {
-        Label text = (Label) bar.getUserObject();
-        text.setUserObject(new TranslationParameters.Builder(key).withProgressBar(bar).build());
-        if(text.getUserObject() != null) {
-            TranslationParameters parameters = (TranslationParameters) text.getUserObject();
-            bar.setValue(bar.getValue() + 1);
-            LanguageManager.updateLabel(text, parameters);
-        }
+        getProgress(bar).increment(key);
     }
 
+    /**
+     * @deprecated use the {@link ProgressTracker}s of your {@link LoadStage} or
+     * of {@link #engine}, this will be removed in the next release
+     */
+    @Deprecated
     public void incrementProgress(ProgressBar bar, String str) {
-        Label text = (Label) bar.getUserObject();
-        bar.setValue(bar.getValue() + 1);
-        text.setText(str + " %d/%d".formatted((int)bar.getValue(), (int)bar.getMaxValue()));
+        getProgress(bar).increment(str);
+    }
+
+    /**
+     * The bars only show the progress of the engine and of the shown stage, they
+     * are updated on the render thread
+     */
+    private ProgressTracker getProgress(ProgressBar bar) {
+        LoadStage shownStage = engine.getShownStage();
+        if(bar == progressBar1) return engine.progress1;
+        if(bar == progressBar2) return shownStage == null ? new ProgressTracker() : shownStage.progress2;
+        if(bar == progressBar3) return shownStage == null ? new ProgressTracker() : shownStage.progress3;
+        throw new IllegalArgumentException("not a progress bar of the game loader");
+    }
+
+    private static void showProgress(ProgressTracker progress, ProgressBar bar, Label text) {
+        boolean visible = progress.isVisible();
+        bar.setVisible(visible);
+        text.setVisible(visible);
+        if(visible) {
+            int range = progress.getRange();
+            if(bar.getMaxValue() != range) bar.setRange(0, range);
+            bar.setValue(progress.getValue());
+            text.setText(progress.getText());
+        }
     }
 
 }
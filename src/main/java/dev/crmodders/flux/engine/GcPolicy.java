@@ -0,0 +1,61 @@
+package dev.crmodders.flux.engine;
+
+import java.lang.management.MemoryUsage;
+
+/**
+ * Decides if the game loader should request a garbage collection after a
+ * load stage, configured by {@link dev.crmodders.flux.FluxSettings#LoaderGcPolicy}
+ */
+public enum GcPolicy {
+
+    /**
+     * Never request a collection, leave it to the garbage collector
+     */
+    NEVER,
+
+    /**
+     * Request a collection after every stage
+     */
+    ALWAYS,
+
+    /**
+     * Request a collection only when the heap occupancy is above
+     * {@link dev.crmodders.flux.FluxSettings#LoaderGcThreshold} percent
+     */
+    THRESHOLD;
+
+    /**
+     * @param value the name of the policy, case insensitive
+     * @return the policy, {@link #THRESHOLD} if there is none of that name
+     */
+    public static GcPolicy fromSetting(String value) {
+        for (GcPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(value)) {
+                return policy;
+            }
+        }
+        return THRESHOLD;
+    }
+
+    /**
+     * @param heap the current heap usage
+     * @param thresholdPercent heap occupancy in percent above which {@link #THRESHOLD} collects
+     * @return true if a collection should be requested
+     */
+    public boolean shouldCollect(MemoryUsage heap, int thresholdPercent) {
+        return switch (this) {
+            case NEVER -> false;
+            case ALWAYS -> true;
+            case THRESHOLD -> getOccupancyPercent(heap) >= thresholdPercent;
+        };
+    }
+
+    public static int getOccupancyPercent(MemoryUsage heap) {
+        long limit = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        if (limit <= 0) {
+            return 0;
+        }
+        return (int) (heap.getUsed() * 100 / limit);
+    }
+
+}
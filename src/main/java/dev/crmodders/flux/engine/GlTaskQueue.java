@@ -0,0 +1,76 @@
+package dev.crmodders.flux.engine;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free multi producer, single consumer queue for gl tasks.
+ * Any thread may add tasks, only the render thread may poll them.
+ * Tasks added with {@link #addAll(Collection)} stay in one contiguous
+ * block, even when other threads add tasks at the same time
+ */
+public class GlTaskQueue {
+
+    private static final class Node {
+        Runnable task;
+        volatile Node next;
+
+        Node(Runnable task) {
+            this.task = task;
+        }
+    }
+
+    private final AtomicReference<Node> tail;
+    private Node head;
+
+    public GlTaskQueue() {
+        Node stub = new Node(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    public void add(Runnable task) {
+        Node node = new Node(task);
+        tail.getAndSet(node).next = node;
+    }
+
+    public void addAll(Collection<? extends Runnable> tasks) {
+        Node first = null;
+        Node last = null;
+        for (Runnable task : tasks) {
+            Node node = new Node(task);
+            if (first == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+        if (first != null) {
+            tail.getAndSet(last).next = first;
+        }
+    }
+
+    /**
+     * Must only be called from the consuming thread
+     * @return the oldest task or null if the queue is empty
+     */
+    public Runnable poll() {
+        Node next = head.next;
+        if (next == null) {
+            return null;
+        }
+        Runnable task = next.task;
+        next.task = null;
+        head = next;
+        return task;
+    }
+
+    /**
+     * Must only be called from the consuming thread
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+}
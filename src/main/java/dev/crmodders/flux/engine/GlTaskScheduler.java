@@ -0,0 +1,99 @@
+package dev.crmodders.flux.engine;
+
+import java.util.Collection;
+
+import static dev.crmodders.flux.engine.StartupTracer.TRACER;
+
+/**
+ * Drains the {@link GlTaskQueue} on the render thread with a per frame
+ * time budget. The budget adapts to the measured frame time, everything
+ * the frame spends outside of gl tasks is subtracted from the target frame
+ * time, so the loading screen keeps its frame rate while gl throughput
+ * stays as high as possible
+ */
+public class GlTaskScheduler {
+
+    public static final long TARGET_FRAME_NANOS = 1_000_000_000L / 30;
+    public static final long MIN_BUDGET_NANOS = 2_000_000L;
+
+    private static final double SMOOTHING = 0.1;
+
+    private final GlTaskQueue queue = new GlTaskQueue();
+
+    private long lastFrameStart;
+    private long lastDrainNanos;
+    private double frameOverheadNanos = -1;
+
+    public void submit(Runnable task) {
+        queue.add(task);
+    }
+
+    public void submitAll(Collection<? extends Runnable> tasks) {
+        queue.addAll(tasks);
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * @return the time the next call to {@link #drain()} may spend running tasks
+     */
+    public long getBudgetNanos() {
+        long overhead = frameOverheadNanos < 0 ? 0 : (long) frameOverheadNanos;
+        return Math.max(MIN_BUDGET_NANOS, TARGET_FRAME_NANOS - overhead);
+    }
+
+    /**
+     * Runs queued tasks until the queue is empty or the frame budget is used up,
+     * at least one task is run every frame. Must be called once per frame from
+     * the render thread
+     * @return the number of tasks that were run
+     */
+    public int drain() {
+        long frameStart = System.nanoTime();
+        if (lastFrameStart != 0) {
+            long overhead = Math.max(0, frameStart - lastFrameStart - lastDrainNanos);
+            frameOverheadNanos = frameOverheadNanos < 0 ? overhead : frameOverheadNanos + (overhead - frameOverheadNanos) * SMOOTHING;
+        }
+        lastFrameStart = frameStart;
+
+        long deadline = frameStart + getBudgetNanos();
+        int count = 0;
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            run(task);
+            count++;
+            if (System.nanoTime() - deadline >= 0) break;
+        }
+        lastDrainNanos = System.nanoTime() - frameStart;
+        return count;
+    }
+
+    /**
+     * Runs queued tasks until the queue is empty, ignoring the frame budget.
+     * Used when loading without a render loop
+     * @return the number of tasks that were run
+     */
+    public int drainAll() {
+        int count = 0;
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            run(task);
+            count++;
+        }
+        return count;
+    }
+
+    private static void run(Runnable task) {
+        if (TRACER.isEnabled()) {
+            String name = task instanceof StartupTracer.NamedTask named ? named.name() : "gl task";
+            try (StartupTracer.Span ignored = TRACER.begin("gl", name)) {
+                task.run();
+            }
+        } else {
+            task.run();
+        }
+    }
+
+}
@@ -4,23 +4,72 @@ import dev.crmodders.flux.FluxRegistries;
 import dev.crmodders.flux.localization.TranslationKey;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class LoadStage {
 
-    public GameLoader loader;
+    /**
+     * The engine running this stage, stages which need the {@link GameLoader}
+     * itself have to get it elsewhere, it is not available while running headless
+     */
+    public LoadingEngine loader;
     public TranslationKey title;
 
-    public void initialize(GameLoader loader) {
+    /**
+     * The progress of this stage, shown in the second and third bar of the
+     * {@link GameLoader} while this is the most recently started stage that is
+     * still running. Every stage has its own, so stages running at the same
+     * time don't overwrite each other's progress
+     */
+    public final ProgressTracker progress2 = new ProgressTracker();
+    public final ProgressTracker progress3 = new ProgressTracker();
+
+    private final Map<Class<? extends LoadStage>, StageOutput> dependencies = new LinkedHashMap<>();
+
+    public void initialize(LoadingEngine loader) {
         this.loader = loader;
         try {
             FluxRegistries.EVENT_BUS.register(this);
         } catch (Exception ignored) {}
     }
 
+    /**
+     * Declares that this stage may only start after every stage of the given
+     * type has finished, including all of its gl tasks. Stages that don't
+     * depend on each other may be run at the same time
+     * @param stage the type of the stage this stage depends on
+     */
+    public void dependsOn(Class<? extends LoadStage> stage) {
+        dependsOn(stage, StageOutput.GL);
+    }
+
+    /**
+     * Declares that this stage may only start after the given output of every
+     * stage of the given type is done. Depending on {@link StageOutput#CPU} lets
+     * this stage run while the gl tasks of the other stage are still draining,
+     * its own gl tasks are still run after those of the other stage
+     * @param stage the type of the stage this stage depends on
+     * @param output what this stage needs from the other stage
+     */
+    public void dependsOn(Class<? extends LoadStage> stage, StageOutput output) {
+        dependencies.put(stage, output);
+    }
+
+    public Set<Class<? extends LoadStage>> getDependencies() {
+        return Collections.unmodifiableSet(dependencies.keySet());
+    }
+
+    public StageOutput getRequiredOutput(Class<? extends LoadStage> stage) {
+        return dependencies.get(stage);
+    }
+
     public void doStage() {
-        loader.setupProgressBar(loader.progressBar2, 0);
-        loader.setupProgressBar(loader.progressBar3, 0);
+        progress2.setup(0);
+        progress3.setup(0);
     }
 
     public List<Runnable> getGlTasks() {
@@ -0,0 +1,157 @@
+package dev.crmodders.flux.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs {@link LoadStage}s as a dependency graph, every stage is started
+ * on a worker pool as soon as the outputs it needs from the stages it depends
+ * on are done, so independent stages run at the same time and a stage only
+ * needing the cpu output of another one overlaps with its gl tasks
+ */
+public class LoadStageScheduler {
+
+    public interface StageRunner {
+
+        /**
+         * Runs the cpu work of a stage on the calling thread
+         */
+        void runStage(LoadStage stage);
+
+        /**
+         * Queues the gl tasks of a stage, has to return without waiting for them
+         * @return a future completed once all gl tasks of the stage ran
+         */
+        CompletableFuture<Void> queueGlTasks(LoadStage stage);
+
+    }
+
+    private record Dependency(LoadStage stage, StageOutput output) {}
+
+    private final List<LoadStage> stages;
+    private final StageRunner runner;
+
+    /**
+     * @param stages all stages to run, in the order they were added
+     * @param runner runs the cpu work and queues the gl tasks of a single stage
+     */
+    public LoadStageScheduler(List<LoadStage> stages, StageRunner runner) {
+        this.stages = stages;
+        this.runner = runner;
+    }
+
+    /**
+     * Orders the stages so every stage comes after its dependencies,
+     * stages without an order between them keep the order they were added in
+     * @return the sorted stages
+     * @throws IllegalStateException if a dependency is missing or the stages form a cycle
+     */
+    public List<LoadStage> sort() {
+        Map<LoadStage, List<Dependency>> dependencies = resolveDependencies();
+
+        Map<LoadStage, Integer> remaining = new HashMap<>();
+        Map<LoadStage, List<LoadStage>> dependents = new HashMap<>();
+        for (LoadStage stage : stages) {
+            remaining.put(stage, dependencies.get(stage).size());
+            for (Dependency dependency : dependencies.get(stage)) {
+                dependents.computeIfAbsent(dependency.stage, k -> new ArrayList<>()).add(stage);
+            }
+        }
+
+        Queue<LoadStage> ready = new ArrayDeque<>();
+        for (LoadStage stage : stages) {
+            if (remaining.get(stage) == 0) ready.add(stage);
+        }
+
+        List<LoadStage> sorted = new ArrayList<>(stages.size());
+        while (!ready.isEmpty()) {
+            LoadStage stage = ready.poll();
+            sorted.add(stage);
+            for (LoadStage dependent : dependents.getOrDefault(stage, List.of())) {
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) ready.add(dependent);
+            }
+        }
+
+        if (sorted.size() != stages.size()) {
+            List<String> cycle = new ArrayList<>();
+            for (LoadStage stage : stages) {
+                if (!sorted.contains(stage)) cycle.add(stage.getClass().getSimpleName());
+            }
+            throw new IllegalStateException("Load stages have cyclic dependencies: " + cycle);
+        }
+        return sorted;
+    }
+
+    /**
+     * Runs all stages and blocks until every one of them has finished, including
+     * its gl tasks. The gl tasks of a stage are always queued after those of the
+     * stages it depends on
+     * @param threads the maximum number of stages that may run at the same time
+     */
+    public void run(int threads) {
+        List<LoadStage> sorted = sort();
+        Map<LoadStage, List<Dependency>> dependencies = resolveDependencies();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, stages.size())), new LoaderThreadFactory("GameLoader-Stage"));
+        try {
+            Map<LoadStage, CompletableFuture<Void>> cpuDone = new HashMap<>();
+            Map<LoadStage, CompletableFuture<CompletableFuture<Void>>> glQueued = new HashMap<>();
+            Map<LoadStage, CompletableFuture<Void>> glDone = new HashMap<>();
+            for (LoadStage stage : sorted) {
+                List<CompletableFuture<?>> required = new ArrayList<>();
+                List<CompletableFuture<?>> queuedBefore = new ArrayList<>();
+                for (Dependency dependency : dependencies.get(stage)) {
+                    required.add(dependency.output == StageOutput.CPU ? cpuDone.get(dependency.stage) : glDone.get(dependency.stage));
+                    queuedBefore.add(glQueued.get(dependency.stage));
+                }
+
+                CompletableFuture<Void> cpu = CompletableFuture.allOf(required.toArray(CompletableFuture[]::new))
+                        .thenRunAsync(() -> runner.runStage(stage), executor);
+                queuedBefore.add(cpu);
+                CompletableFuture<CompletableFuture<Void>> queued = CompletableFuture.allOf(queuedBefore.toArray(CompletableFuture[]::new))
+                        .thenApplyAsync(ignored -> runner.queueGlTasks(stage), executor);
+
+                cpuDone.put(stage, cpu);
+                glQueued.put(stage, queued);
+                glDone.put(stage, queued.thenCompose(done -> done));
+            }
+            CompletableFuture.allOf(glDone.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Map<LoadStage, List<Dependency>> resolveDependencies() {
+        Map<LoadStage, List<Dependency>> dependencies = new LinkedHashMap<>();
+        for (LoadStage stage : stages) {
+            List<Dependency> resolved = new ArrayList<>();
+            for (Class<? extends LoadStage> type : stage.getDependencies()) {
+                boolean found = false;
+                for (LoadStage other : stages) {
+                    if (other != stage && type.isInstance(other)) {
+                        resolved.add(new Dependency(other, stage.getRequiredOutput(type)));
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    throw new IllegalStateException("Load stage " + stage.getClass().getSimpleName() + " depends on missing stage " + type.getSimpleName());
+                }
+            }
+            dependencies.put(stage, resolved);
+        }
+        return dependencies;
+    }
+
+}
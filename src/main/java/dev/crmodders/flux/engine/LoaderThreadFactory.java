@@ -0,0 +1,29 @@
+package dev.crmodders.flux.engine;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dev.crmodders.flux.engine.GameLoader.LOGGER;
+
+/**
+ * Creates the daemon worker threads used while loading the game,
+ * threads are named after the pool and log any uncaught exception
+ */
+public class LoaderThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public LoaderThreadFactory(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler((t, e) -> LOGGER.error("Thread '{}' threw an Exception", t.getName(), e));
+        return thread;
+    }
+
+}
@@ -0,0 +1,201 @@
+package dev.crmodders.flux.engine;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import dev.crmodders.flux.FluxConstants;
+import dev.crmodders.flux.FluxSettings;
+import dev.crmodders.flux.engine.blocks.BlockLoader;
+import dev.crmodders.flux.engine.stages.*;
+import dev.crmodders.flux.localization.LanguageManager;
+import finalforeach.cosmicreach.GameSingletons;
+import finalforeach.cosmicreach.io.SaveLocation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static dev.crmodders.flux.engine.GameLoader.LOGGER;
+import static dev.crmodders.flux.engine.StartupTracer.TRACER;
+
+/**
+ * Runs the loading stages without depending on a render loop. The {@link GameLoader}
+ * drives it from its render method and shows its progress, tools without a display
+ * can call {@link #runHeadless()}, which runs the gl tasks on the calling thread
+ */
+public class LoadingEngine {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public final ProgressTracker progress1 = new ProgressTracker();
+
+    private final List<LoadStage> stages = new ArrayList<>();
+    /**
+     * Stages which started and whose gl tasks are not done yet, in the order they started
+     */
+    private final Deque<LoadStage> running = new ConcurrentLinkedDeque<>();
+    private final GlTaskScheduler glScheduler = new GlTaskScheduler();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+    public final BlockLoader blockLoader;
+
+    public LoadingEngine() {
+        TRACER.setEnabled(FluxSettings.StartupTracing.getValue());
+
+        // create singletons
+        blockLoader = new BlockLoader();
+        GameSingletons.blockModelInstantiator = blockLoader.factory;
+    }
+
+    /**
+     * Adds the stages loading the assets, the mods and the game itself
+     */
+    public void addDefaultStages() {
+        addStage(new LoadingAssets());
+        addStage(new QueueingStreamedAssets());
+        addStage(new PreInitialize());
+        addStage(new Initialize());
+        addStage(new LoadingCosmicReach());
+        addStage(new LoadingLoot());
+        addStage(new PostInitialize());
+    }
+
+    public void addStage(LoadStage stage) {
+        stages.add(stage);
+        stage.initialize(this);
+    }
+
+    /**
+     * Starts loading on a new thread, the gl tasks of the stages are queued until
+     * {@link #update()} is called
+     * @return a future completed once all stages finished
+     */
+    public CompletableFuture<Void> start() {
+        Thread loadingThread = new Thread(this::load, "GameLoader");
+        loadingThread.setUncaughtExceptionHandler(this::uncaughtException);
+        loadingThread.start();
+        return finished;
+    }
+
+    /**
+     * Runs queued gl tasks within the frame budget, has to be called every frame
+     * from the thread owning the gl context
+     */
+    public void update() {
+        glScheduler.drain();
+    }
+
+    public boolean isFinished() {
+        return finished.isDone();
+    }
+
+    /**
+     * @return the most recently started stage which is still running, its
+     * progress is the one shown, null if no stage is running
+     */
+    public LoadStage getShownStage() {
+        return running.peekLast();
+    }
+
+    /**
+     * Loads everything and blocks until done, running the gl tasks on the calling
+     * thread without a frame budget. Use a headless libGDX backend if gl tasks
+     * may touch the gl context
+     */
+    public void runHeadless() {
+        start();
+        while (!finished.isDone()) {
+            glScheduler.drainAll();
+            try {
+                finished.get(1, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException ignored) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        glScheduler.drainAll();
+        finished.join();
+    }
+
+    private void load() {
+        try {
+            progress1.setup(stages.size());
+            LoadStageScheduler scheduler = new LoadStageScheduler(stages, new LoadStageScheduler.StageRunner() {
+                @Override
+                public void runStage(LoadStage stage) {
+                    LoadingEngine.this.runStage(stage);
+                }
+
+                @Override
+                public CompletableFuture<Void> queueGlTasks(LoadStage stage) {
+                    return LoadingEngine.this.queueGlTasks(stage);
+                }
+            });
+            scheduler.run(Runtime.getRuntime().availableProcessors());
+
+            if(TRACER.isEnabled()) {
+                try {
+                    FileHandle traceFile = Gdx.files.absolute(SaveLocation.getSaveFolderLocation() + "/flux-startup-trace.json");
+                    TRACER.write(traceFile);
+                    LOGGER.info("Wrote startup trace to {}", traceFile.path());
+                } catch (Exception e) {
+                    LOGGER.error("Cannot write startup trace", e);
+                }
+            }
+            FluxConstants.FluxHasLoaded = true;
+            finished.complete(null);
+        } catch (Throwable e) {
+            finished.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void runStage(LoadStage stage) {
+        progress1.increment(LanguageManager.string(stage.title));
+        running.addLast(stage);
+        try (StartupTracer.Span ignored = TRACER.begin("stage", () -> stage.getClass().getSimpleName())) {
+            stage.doStage();
+        }
+
+        collectGarbage(stage);
+    }
+
+    private CompletableFuture<Void> queueGlTasks(LoadStage stage) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        List<Runnable> glTasks = stage.getGlTasks();
+        glScheduler.submitAll(glTasks);
+        glScheduler.submit( () -> {
+            running.remove(stage);
+            done.complete(null);
+        } );
+        return done;
+    }
+
+    private void collectGarbage(LoadStage stage) {
+        GcPolicy policy = GcPolicy.fromSetting(FluxSettings.LoaderGcPolicy.getValue());
+        MemoryUsage before = MEMORY.getHeapMemoryUsage();
+        if (!policy.shouldCollect(before, FluxSettings.LoaderGcThreshold.getValue())) {
+            LOGGER.debug("Skipped garbage collection after {}, heap at {}%", stage.getClass().getSimpleName(), GcPolicy.getOccupancyPercent(before));
+            return;
+        }
+
+        long start = System.nanoTime();
+        MEMORY.gc();
+        long pauseMillis = (System.nanoTime() - start) / 1_000_000;
+        MemoryUsage after = MEMORY.getHeapMemoryUsage();
+        LOGGER.info("Garbage collection after {} took {}ms, heap {}MB -> {}MB", stage.getClass().getSimpleName(), pauseMillis, before.getUsed() / (1024 * 1024), after.getUsed() / (1024 * 1024));
+    }
+
+    private void uncaughtException(Thread t, Throwable e) {
+        LOGGER.error("Thread '{}' threw an Exception", t.getName(), e);
+    }
+
+}
@@ -0,0 +1,117 @@
+package dev.crmodders.flux.engine;
+
+import dev.crmodders.flux.localization.LanguageManager;
+import dev.crmodders.flux.localization.TranslationKey;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one loading step, independent of any ui. Loader threads update it
+ * without locking, the {@link GameLoader} reads it once per frame and shows it in
+ * one of its progress bars. The text is only formatted again when something it
+ * shows changed
+ */
+public class ProgressTracker {
+
+    private final AtomicInteger value = new AtomicInteger();
+    private volatile int range;
+    private volatile TranslationKey key;
+    private volatile String text = "";
+    private volatile boolean counting;
+
+    // only accessed by the thread showing the progress
+    private int shownValue = -1;
+    private int shownRange = -1;
+    private TranslationKey shownKey;
+    private String shownText;
+    private boolean shownCounting;
+    private String formatted = "";
+
+    /**
+     * Resets the progress and hides it if the range is 0
+     */
+    public void setup(int range) {
+        set(range, null, "");
+    }
+
+    /**
+     * Resets the progress, the text is the translation of the key formatted with the progress
+     */
+    public void setup(int range, TranslationKey key) {
+        set(range, key, null);
+    }
+
+    /**
+     * Resets the progress, the text is shown as is until the first increment
+     */
+    public void setup(int range, String text) {
+        set(range, null, text);
+    }
+
+    public void increment() {
+        value.incrementAndGet();
+    }
+
+    public void increment(TranslationKey key) {
+        this.text = null;
+        this.key = key;
+        value.incrementAndGet();
+    }
+
+    public void increment(String text) {
+        this.key = null;
+        this.text = text;
+        this.counting = true;
+        value.incrementAndGet();
+    }
+
+    public int getValue() {
+        return value.get();
+    }
+
+    public int getRange() {
+        return range;
+    }
+
+    public boolean isVisible() {
+        return range != 0;
+    }
+
+    /**
+     * Formats the text for the current progress, returns the same instance as
+     * long as nothing shown in it changed. Has to be called from a single thread
+     */
+    public String getText() {
+        int value = this.value.get();
+        int range = this.range;
+        TranslationKey key = this.key;
+        String text = this.text;
+        boolean counting = this.counting;
+        boolean showsProgress = key != null || counting;
+
+        if(key != shownKey || text != shownText || counting != shownCounting || (showsProgress && (value != shownValue || range != shownRange))) {
+            shownValue = value;
+            shownRange = range;
+            shownKey = key;
+            shownText = text;
+            shownCounting = counting;
+            if(key != null) {
+                formatted = LanguageManager.format(key, value, range);
+            } else if(counting) {
+                formatted = text + " %d/%d".formatted(value, range);
+            } else {
+                formatted = text;
+            }
+        }
+        return formatted;
+    }
+
+    private void set(int range, TranslationKey key, String text) {
+        this.counting = false;
+        this.text = text;
+        this.key = key;
+        this.range = range;
+        value.set(0);
+    }
+
+}
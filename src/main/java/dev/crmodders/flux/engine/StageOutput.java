@@ -0,0 +1,19 @@
+package dev.crmodders.flux.engine;
+
+/**
+ * What a {@link LoadStage} needs from a stage it depends on
+ */
+public enum StageOutput {
+
+    /**
+     * Only the work done in {@link LoadStage#doStage()}, the gl tasks of the
+     * dependency may still be running while the dependent stage starts
+     */
+    CPU,
+
+    /**
+     * The work done in {@link LoadStage#doStage()} and all of its gl tasks
+     */
+    GL
+
+}
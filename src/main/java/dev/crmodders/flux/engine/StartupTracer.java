@@ -0,0 +1,176 @@
+package dev.crmodders.flux.engine;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Records timed spans while the game is starting and exports them as a
+ * Chrome trace event file, which can be opened in chrome://tracing or
+ * <a href="https://ui.perfetto.dev">Perfetto</a>. Recording is thread safe
+ * and close to free while the tracer is disabled
+ */
+public class StartupTracer {
+
+    public static final StartupTracer TRACER = new StartupTracer();
+
+    /**
+     * A running span, closing it records the time since it was started
+     */
+    public static class Span implements AutoCloseable {
+
+        private final StartupTracer tracer;
+        private final String category;
+        private String name;
+        private final long start;
+
+        private Span(StartupTracer tracer, String category, String name, long start) {
+            this.tracer = tracer;
+            this.category = category;
+            this.name = name;
+            this.start = start;
+        }
+
+        /**
+         * Renames this span, for spans whose name is only known after they started
+         */
+        public void rename(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Same as {@link #rename(String)}, but only builds the name while the tracer is enabled
+         */
+        public void rename(Supplier<String> name) {
+            if (tracer != null) {
+                this.name = name.get();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (tracer != null) {
+                Thread thread = Thread.currentThread();
+                tracer.events.add(new Event(category, name, start, System.nanoTime() - start, thread.getId(), thread.getName()));
+            }
+        }
+    }
+
+    /**
+     * A gl task with a name, so it shows up as more than an anonymous task in the trace
+     */
+    public record NamedTask(String name, Runnable task) implements Runnable {
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    private record Event(String category, String name, long start, long duration, long threadId, String threadName) {}
+
+    private static final Span DISABLED = new Span(null, null, null, 0);
+
+    private final long origin = System.nanoTime();
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private volatile boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts a span, use it in a try-with-resources block
+     * @param category the category, used for grouping and filtering in the viewer
+     * @param name the name of the span
+     * @return the running span
+     */
+    public Span begin(String category, String name) {
+        if (!enabled) {
+            return DISABLED;
+        }
+        return new Span(this, category, name, System.nanoTime());
+    }
+
+    /**
+     * Same as {@link #begin(String, String)}, but only builds the name while the
+     * tracer is enabled, use this for names which are not constant
+     * @param category the category, used for grouping and filtering in the viewer
+     * @param name builds the name of the span
+     * @return the running span
+     */
+    public Span begin(String category, Supplier<String> name) {
+        if (!enabled) {
+            return DISABLED;
+        }
+        return new Span(this, category, name.get(), System.nanoTime());
+    }
+
+    /**
+     * Writes all recorded spans to a file in the Chrome trace event format
+     * @param file the file to write to
+     */
+    public void write(FileHandle file) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+
+        Map<Long, String> threads = new HashMap<>();
+        boolean first = true;
+        for (Event event : events) {
+            threads.putIfAbsent(event.threadId, event.threadName);
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"ph\":\"X\",\"pid\":1,\"tid\":").append(event.threadId);
+            json.append(",\"ts\":").append((event.start - origin) / 1000.0);
+            json.append(",\"dur\":").append(event.duration / 1000.0);
+            json.append(",\"cat\":");
+            appendString(json, event.category);
+            json.append(",\"name\":");
+            appendString(json, event.name);
+            json.append('}');
+        }
+        for (Map.Entry<Long, String> thread : threads.entrySet()) {
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"ph\":\"M\",\"pid\":1,\"tid\":").append(thread.getKey());
+            json.append(",\"name\":\"thread_name\",\"args\":{\"name\":");
+            appendString(json, thread.getValue());
+            json.append("}}");
+        }
+
+        json.append("]}");
+        file.writeString(json.toString(), false);
+    }
+
+    private static void appendString(StringBuilder json, String string) {
+        json.append('"');
+        if (string != null) {
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                switch (c) {
+                    case '"' -> json.append("\\\"");
+                    case '\\' -> json.append("\\\\");
+                    case '\n' -> json.append("\\n");
+                    case '\r' -> json.append("\\r");
+                    case '\t' -> json.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            json.append("\\u%04x".formatted((int) c));
+                        } else {
+                            json.append(c);
+                        }
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+}
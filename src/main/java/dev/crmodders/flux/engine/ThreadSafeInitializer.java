@@ -0,0 +1,39 @@
+package dev.crmodders.flux.engine;
+
+import dev.crmodders.flux.annotations.Experimental;
+import dev.crmodders.flux.tags.Identifier;
+
+import java.util.Set;
+
+/**
+ * Marks a Runnable registered to {@link dev.crmodders.flux.FluxRegistries#ON_PRE_INITIALIZE},
+ * {@link dev.crmodders.flux.FluxRegistries#ON_INITIALIZE} or {@link dev.crmodders.flux.FluxRegistries#ON_POST_INITIALIZE}
+ * as safe to run concurrently with other initializers of the same registry.
+ * Regular Runnables keep running one after another in registration order
+ */
+@Experimental
+public interface ThreadSafeInitializer extends Runnable {
+
+    /**
+     * @return ids of initializers in the same registry that have to finish before this one starts
+     */
+    default Set<Identifier> runAfter() {
+        return Set.of();
+    }
+
+    static ThreadSafeInitializer of(Runnable initializer, Identifier... runAfter) {
+        Set<Identifier> dependencies = Set.of(runAfter);
+        return new ThreadSafeInitializer() {
+            @Override
+            public void run() {
+                initializer.run();
+            }
+
+            @Override
+            public Set<Identifier> runAfter() {
+                return dependencies;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,387 @@
+package dev.crmodders.flux.engine.blocks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import dev.crmodders.flux.FluxSettings;
+import dev.crmodders.flux.assets.VanillaAssetLocations;
+import dev.crmodders.flux.engine.LoaderThreadFactory;
+import dev.crmodders.flux.engine.StartupTracer;
+import dev.crmodders.flux.mixins.blocks.ChunkShaderAccessor;
+import dev.crmodders.flux.tags.ResourceLocation;
+import finalforeach.cosmicreach.GameSingletons;
+import finalforeach.cosmicreach.io.SaveLocation;
+import finalforeach.cosmicreach.rendering.blockmodels.BlockModelJsonTexture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static dev.crmodders.flux.engine.StartupTracer.TRACER;
+
+/**
+ * Persists the block texture atlas and the raw block and model sources between
+ * launches. Only the atlas and the sources are cached, blocks and models are
+ * built and baked on every launch. The cache is keyed by the size and
+ * modification time of the game jar, the Flux jar, every Java mod and every
+ * file in the mods folder, so any change to those rebuilds it. When the key
+ * matches, textures already in the restored atlas are not loaded or drawn
+ * again and sources are not looked up on disk again. Textures registered as
+ * pixmaps are generated at runtime and are always drawn again
+ */
+public class AtlasCache {
+
+    public static final AtlasCache CACHE = new AtlasCache();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("FluxAPI / AtlasCache");
+
+    private static final int MAGIC = 0x464C5843;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String[] MOD_DESCRIPTORS = { "fabric.mod.json", "quilt.mod.json", "puzzle.mod.json" };
+
+    private record Snapshot(byte[] key, String format, int width, int height, int curX, int curY,
+                            Map<String, float[]> textures, byte[] pixels, Map<String, String> sources) {}
+
+    private final Map<String, String> sources = new ConcurrentHashMap<>();
+    private byte[] key;
+    private volatile boolean restored;
+
+    public static FileHandle getCacheFile() {
+        return Gdx.files.absolute(SaveLocation.getSaveFolderLocation() + "/cache/flux-atlas-cache.bin");
+    }
+
+    /**
+     * @return true if the atlas and sources were restored from disk during this launch
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * Restores the atlas and sources, if the cache on disk was written by an
+     * identical setup. This has to be called before any block texture is registered
+     * @return true if the cache was restored
+     */
+    public boolean restore() {
+        if(!FluxSettings.AtlasCache.getValue()) {
+            return false;
+        }
+
+        try (StartupTracer.Span ignored = TRACER.begin("cache", "restore atlas cache")) {
+            key = computeKey();
+
+            FileHandle file = getCacheFile();
+            if(!file.exists()) {
+                LOGGER.info("No atlas cache found, it will be created after loading");
+                return false;
+            }
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(file.read()), 1 << 16))) {
+                if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !Arrays.equals(in.readNBytes(key.length), key)) {
+                    LOGGER.info("Atlas cache is stale, it will be rebuilt after loading");
+                    return false;
+                }
+                Snapshot snapshot = read(in);
+                if(!restoreAtlas(snapshot)) {
+                    LOGGER.warn("Atlas cache does not match the block atlas, it will be rebuilt after loading");
+                    return false;
+                }
+                sources.putAll(snapshot.sources);
+                restored = true;
+                LOGGER.info("Restored atlas cache with {} textures and {} sources", snapshot.textures.size(), snapshot.sources.size());
+                return true;
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot read atlas cache, it will be rebuilt after loading", e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads a text resource, using the cached copy if the cache was restored.
+     * Everything read through here is written to the next cache
+     * @param location the location of the resource
+     * @return the contents of the resource
+     */
+    public String readString(ResourceLocation location) {
+        String name = location.toString();
+        if(restored) {
+            String source = sources.get(name);
+            if(source != null) {
+                return source;
+            }
+        }
+        String source = location.locate().readString();
+        sources.put(name, source);
+        return source;
+    }
+
+    /**
+     * Takes a snapshot of the finished atlas and writes it to disk on a
+     * background thread, has to run on the gl thread after all block models
+     * were initialized
+     */
+    public void capture() {
+        if(!FluxSettings.AtlasCache.getValue() || restored || key == null) {
+            return;
+        }
+
+        Pixmap allBlocksPix = ChunkShaderAccessor.getAllBlocksPix();
+        if(allBlocksPix == null) {
+            return;
+        }
+
+        Map<String, float[]> textures = new LinkedHashMap<>();
+        for(Map.Entry<String, BlockModelJsonTexture> entry : ChunkShaderAccessor.getStoredTexs().entrySet()) {
+            float[] uv = entry.getValue().uv;
+            if(uv != null) {
+                textures.put(entry.getKey(), uv.clone());
+            }
+        }
+
+        ByteBuffer buffer = allBlocksPix.getPixels().duplicate();
+        buffer.clear();
+        byte[] pixels = new byte[buffer.remaining()];
+        buffer.get(pixels);
+
+        Snapshot snapshot = new Snapshot(key, allBlocksPix.getFormat().name(), allBlocksPix.getWidth(), allBlocksPix.getHeight(),
+                ChunkShaderAccessor.getTerrainPixCurX(), ChunkShaderAccessor.getTerrainPixCurY(),
+                textures, pixels, new HashMap<>(sources));
+
+        new LoaderThreadFactory("GameLoader-Cache").newThread(() -> write(snapshot)).start();
+    }
+
+    private static boolean restoreAtlas(Snapshot snapshot) {
+        Pixmap allBlocksPix = ChunkShaderAccessor.getAllBlocksPix();
+        if(allBlocksPix == null
+                || allBlocksPix.getWidth() != snapshot.width
+                || allBlocksPix.getHeight() != snapshot.height
+                || !allBlocksPix.getFormat().name().equals(snapshot.format)) {
+            return false;
+        }
+
+        ByteBuffer buffer = allBlocksPix.getPixels().duplicate();
+        buffer.clear();
+        if(buffer.remaining() != snapshot.pixels.length) {
+            return false;
+        }
+        buffer.put(snapshot.pixels);
+
+        HashMap<String, BlockModelJsonTexture> storedTexs = ChunkShaderAccessor.getStoredTexs();
+        for(Map.Entry<String, float[]> entry : snapshot.textures.entrySet()) {
+            BlockModelJsonTexture t = new BlockModelJsonTexture();
+            t.fileName = entry.getKey();
+            t.uv = entry.getValue();
+            storedTexs.put(entry.getKey(), t);
+        }
+        ChunkShaderAccessor.setTerrainPixCurX(snapshot.curX);
+        ChunkShaderAccessor.setTerrainPixCurY(snapshot.curY);
+
+        Texture chunkTerrainTex = ChunkShaderAccessor.getChunkTerrainTex();
+        if(chunkTerrainTex != null) {
+            chunkTerrainTex.dispose();
+            ChunkShaderAccessor.setChunkTerrainTex(null);
+        }
+        return true;
+    }
+
+    private static void write(Snapshot snapshot) {
+        try (StartupTracer.Span ignored = TRACER.begin("cache", "write atlas cache")) {
+            Path file = getCacheFile().file().toPath();
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(Files.newOutputStream(temp), new Deflater(Deflater.BEST_SPEED), 1 << 16), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.write(snapshot.key);
+                writeString(out, snapshot.format);
+                out.writeInt(snapshot.width);
+                out.writeInt(snapshot.height);
+                out.writeInt(snapshot.curX);
+                out.writeInt(snapshot.curY);
+                out.writeInt(snapshot.textures.size());
+                for(Map.Entry<String, float[]> entry : snapshot.textures.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeFloat(entry.getValue()[0]);
+                    out.writeFloat(entry.getValue()[1]);
+                }
+                out.writeInt(snapshot.pixels.length);
+                out.write(snapshot.pixels);
+                out.writeInt(snapshot.sources.size());
+                for(Map.Entry<String, String> entry : snapshot.sources.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Wrote atlas cache with {} textures and {} sources", snapshot.textures.size(), snapshot.sources.size());
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write atlas cache", e);
+        }
+    }
+
+    private static Snapshot read(DataInputStream in) throws IOException {
+        String format = readString(in);
+        int width = in.readInt();
+        int height = in.readInt();
+        int curX = in.readInt();
+        int curY = in.readInt();
+        int textureCount = in.readInt();
+        Map<String, float[]> textures = new LinkedHashMap<>();
+        for(int i = 0; i < textureCount; i++) {
+            textures.put(readString(in), new float[] { in.readFloat(), in.readFloat() });
+        }
+        byte[] pixels = in.readNBytes(in.readInt());
+        int sourceCount = in.readInt();
+        Map<String, String> sources = new HashMap<>();
+        for(int i = 0; i < sourceCount; i++) {
+            sources.put(readString(in), readString(in));
+        }
+        return new Snapshot(null, format, width, height, curX, curY, textures, pixels, sources);
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] computeKey() throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, "format:" + FORMAT_VERSION);
+        update(digest, "vanillaMods:" + FluxSettings.EnabledVanillaMods.getValue());
+        digestCodeSource(digest, GameSingletons.class);
+        digestCodeSource(digest, AtlasCache.class);
+        digestModCodeSources(digest);
+
+        // file metadata only, reading every asset would cost as much as loading them
+        digestPath(digest, VanillaAssetLocations.getModsFolder().file().toPath());
+        return digest.digest();
+    }
+
+    /**
+     * Java mods can ship block assets on the classpath, so every jar or folder
+     * on the class path and every jar containing a mod descriptor is part of the key
+     */
+    private static void digestModCodeSources(MessageDigest digest) throws IOException {
+        Set<Path> paths = new TreeSet<>();
+        for(String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if(!entry.isEmpty()) {
+                paths.add(Path.of(entry).toAbsolutePath());
+            }
+        }
+
+        ClassLoader classLoader = AtlasCache.class.getClassLoader();
+        for(String descriptor : MOD_DESCRIPTORS) {
+            Enumeration<URL> urls = classLoader.getResources(descriptor);
+            while(urls.hasMoreElements()) {
+                Path path = toCodeSource(urls.nextElement());
+                if(path != null) {
+                    paths.add(path);
+                }
+            }
+        }
+
+        for(Path path : paths) {
+            digestPath(digest, path);
+        }
+    }
+
+    private static Path toCodeSource(URL url) {
+        try {
+            if(url.openConnection() instanceof JarURLConnection connection) {
+                return Path.of(connection.getJarFileURL().toURI()).toAbsolutePath();
+            }
+            // descriptors are at the root of a mod, so their folder is the code source
+            Path parent = Path.of(url.toURI()).getParent();
+            return parent == null ? null : parent.toAbsolutePath();
+        } catch (IOException | URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            LOGGER.debug("Cannot resolve the code source of {}", url, e);
+            return null;
+        }
+    }
+
+    private static void digestCodeSource(MessageDigest digest, Class<?> cls) throws IOException {
+        CodeSource codeSource = cls.getProtectionDomain().getCodeSource();
+        if(codeSource == null || codeSource.getLocation() == null) {
+            update(digest, cls.getName());
+            return;
+        }
+        Path path;
+        try {
+            path = Path.of(codeSource.getLocation().toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            update(digest, codeSource.getLocation().toString());
+            return;
+        }
+        digestPath(digest, path);
+    }
+
+    private static void digestPath(MessageDigest digest, Path path) throws IOException {
+        if(Files.isDirectory(path)) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                for(Path file : walk.filter(Files::isRegularFile).sorted().toList()) {
+                    digestMetadata(digest, file);
+                }
+            }
+        } else if(Files.exists(path)) {
+            digestMetadata(digest, path);
+        } else {
+            update(digest, path.toString());
+        }
+    }
+
+    private static void digestMetadata(MessageDigest digest, Path file) throws IOException {
+        update(digest, file + ":" + Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis());
+    }
+
+    private static void update(MessageDigest digest, String string) {
+        digest.update(string.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+}
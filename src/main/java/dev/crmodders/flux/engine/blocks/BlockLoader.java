@@ -2,36 +2,62 @@ package dev.crmodders.flux.engine.blocks;
 
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
 import dev.crmodders.flux.FluxRegistries;
+import dev.crmodders.flux.block.DataModBlock;
 import dev.crmodders.flux.block.FluxBlockAction;
 import dev.crmodders.flux.block.IModBlock;
+import dev.crmodders.flux.engine.StartupTracer;
 import dev.crmodders.flux.engine.blocks.models.BlockModelFlux;
 import dev.crmodders.flux.factories.IFactory;
 import dev.crmodders.flux.generators.BlockEventGenerator;
 import dev.crmodders.flux.generators.BlockGenerator;
 import dev.crmodders.flux.generators.BlockModelGenerator;
+import dev.crmodders.flux.mixins.blocks.ChunkShaderAccessor;
 import dev.crmodders.flux.tags.Identifier;
 import dev.crmodders.flux.tags.ResourceLocation;
 import finalforeach.cosmicreach.blockevents.BlockEvents;
 import finalforeach.cosmicreach.blocks.Block;
 import finalforeach.cosmicreach.blocks.BlockState;
 import finalforeach.cosmicreach.rendering.blockmodels.BlockModel;
+import finalforeach.cosmicreach.rendering.blockmodels.BlockModelJsonTexture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sun.misc.Unsafe;
 
 import java.lang.reflect.Field;
+import java.security.CodeSource;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 
 import static dev.crmodders.flux.assets.FluxGameAssetLoader.LOADER;
+import static dev.crmodders.flux.engine.StartupTracer.TRACER;
+import static dev.crmodders.flux.engine.blocks.AtlasCache.CACHE;
 
 public class BlockLoader {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger("FluxAPI / BlockLoader");
+
     public BlockModelFactory factory = new BlockModelFactory();
     public Json json = new Json();
     public List<BlockLoadException> errors = new ArrayList<>();
 
+    /**
+     * Undoes the registrations of the mod being published by a {@link BlockBatch},
+     * null outside of publishing
+     */
+    private List<Runnable> undo;
+
     /**
      * Call this method to register custom json models, this has to be called
      * before loading the block, else it will try to load it from disk, possibly
@@ -42,7 +68,24 @@ public class BlockLoader {
      * @param modelJson regular json model from DataMods
      */
     public void registerBlockModel(String modelName, int rotXZ, String modelJson) {
-        factory.createFromJson(modelName, rotXZ, modelJson);
+        BlockModel previous = factory.getLoadedModel(modelName, rotXZ);
+        BlockModel model = factory.createFromJson(modelName, rotXZ, modelJson);
+        if(previous == null && model != null) {
+            onUndo(() -> factory.removeModel(modelName, rotXZ, model));
+        }
+    }
+
+    /**
+     * Same as {@link #registerBlockModel(String, int, String)}, but takes an
+     * already built model instead of parsing json
+     * @param modelName name of the model
+     * @param rotXZ how to rotate the model valid values: 0, 90, 180, 270
+     * @param model the model, it must not be registered under any other name
+     */
+    public void registerBlockModel(String modelName, int rotXZ, BlockModelFlux model) {
+        if(factory.createFromModel(modelName, rotXZ, model) == model) {
+            onUndo(() -> factory.removeModel(modelName, rotXZ, model));
+        }
     }
 
     /**
@@ -57,15 +100,41 @@ public class BlockLoader {
      *                Note: this method does not take ownership of the Pixmap
      */
     public void registerTexture(String textureName, Pixmap texture) {
+        // pixmaps may be generated differently on every launch, never trust the cached atlas for them
+        journalTexture(textureName);
         CustomTextureLoader.registerTexture(textureName, texture);
     }
 
     public void registerTexture(ResourceLocation texture) {
+        if(isRestored(texture.toString())) {
+            return;
+        }
         Pixmap pixmap = LOADER.loadResourceSync(texture, Pixmap.class);
+        journalTexture(texture.toString());
         CustomTextureLoader.registerTexture(texture.toString(), pixmap);
         LOADER.unloadResource(texture);
     }
 
+    private static boolean isRestored(String textureName) {
+        return CACHE.isRestored() && ChunkShaderAccessor.getStoredTexs().containsKey(textureName);
+    }
+
+    private void journalTexture(String textureName) {
+        if(undo == null) {
+            return;
+        }
+        // the pixels stay in the atlas, only the name is taken back
+        HashMap<String, BlockModelJsonTexture> storedTexs = ChunkShaderAccessor.getStoredTexs();
+        BlockModelJsonTexture previous = storedTexs.get(textureName);
+        onUndo(() -> {
+            if(previous == null) {
+                storedTexs.remove(textureName);
+            } else {
+                storedTexs.put(textureName, previous);
+            }
+        });
+    }
+
     /**
      * Call this method to register custom block events instead of loading them from
      * json files
@@ -75,9 +144,39 @@ public class BlockLoader {
     public void registerEvent(String eventName, String eventJson) {
         Json json = new Json();
         BlockEvents blockEvents = json.fromJson(BlockEvents.class, eventJson);
-        BlockEvents.INSTANCES.put(eventName, blockEvents);
+        putEvents(eventName, blockEvents);
     }
 
+    /**
+     * Same as {@link #registerEvent(String, String)}, but reads the events from
+     * an already parsed json tree
+     * @param eventName the id
+     * @param eventJson the json
+     */
+    public void registerEvent(String eventName, JsonValue eventJson) {
+        Json json = new Json();
+        BlockEvents blockEvents = json.readValue(BlockEvents.class, eventJson);
+        putEvents(eventName, blockEvents);
+    }
+
+    private void putEvents(String eventName, BlockEvents blockEvents) {
+        BlockEvents previous = BlockEvents.INSTANCES.put(eventName, blockEvents);
+        onUndo(() -> {
+            if(previous == null) {
+                BlockEvents.INSTANCES.remove(eventName);
+            } else {
+                BlockEvents.INSTANCES.put(eventName, previous);
+            }
+        });
+    }
+
+    private void onUndo(Runnable action) {
+        if(undo != null) {
+            undo.add(action);
+        }
+    }
+
+
     /**
      * Registers a block event action
      * @param actionId the id
@@ -87,6 +186,14 @@ public class BlockLoader {
         FluxRegistries.BLOCK_EVENT_ACTION_FACTORIES.register(actionId, action);
     }
 
+    /**
+     * Everything generated for a block before it is committed, built by
+     * {@link #stageBlock(IModBlock)} without touching any global state
+     */
+    public record StagedBlock(IModBlock modBlock, BlockGenerator blockGenerator, JsonValue blockJson,
+                              List<BlockModelGenerator> modelGenerators, List<BlockModelFlux> models,
+                              List<BlockEventGenerator> eventGenerators, List<JsonValue> events) {}
+
     /**
      * Call this method to load a block, it will use cached models and textures,
      * like those registered by registerBlockModel and registerTexture
@@ -94,79 +201,366 @@ public class BlockLoader {
      * @return the block id extracted from the generated json
      */
     public Identifier loadBlock(IModBlock modBlock) {
-        BlockGenerator blockGenerator;
-        try {
-            blockGenerator = modBlock.getBlockGenerator();
-        } catch (Exception e) {
-            throw new BlockLoadException(modBlock, null, null, null, null, e);
-        }
-
-        String blockJson;
-        try {
-            blockGenerator.register(this);
-            blockJson = blockGenerator.generateJson();
-        } catch (Exception e) {
-            throw new BlockLoadException(modBlock, blockGenerator.blockName, blockGenerator.blockId, null, null, e);
-        }
-
-        Block block;
-        try {
-            block = json.fromJson(Block.class, blockJson);
-        } catch (Exception e) {
-            throw new BlockLoadException(modBlock, blockGenerator.blockName, blockGenerator.blockId, blockJson, null, e);
-        }
-
-        try {
-            for(BlockModelGenerator modelGenerator : modBlock.getBlockModelGenerators(blockGenerator.blockId)) {
-                modelGenerator.register(this);
-                String modelName = modelGenerator.getModelName();
-                int rotXZ = 0;
-                String modelJson = modelGenerator.generateJson();
-                registerBlockModel(modelName, rotXZ, modelJson);
-            }
-
-            List<BlockEventGenerator> eventGenerators = modBlock.getBlockEventGenerators(blockGenerator.blockId);
-            if(eventGenerators.isEmpty()) {
-                BlockEventGenerator eventGenerator = new BlockEventGenerator(blockGenerator.blockId, "flux_default");
-                eventGenerators = List.of(eventGenerator);
-            }
-            for(BlockEventGenerator eventGenerator : eventGenerators) {
-                eventGenerator.createTrigger("onInteract", Identifier.fromString("fluxapi:mod_block_interact"), Map.of("blockId", blockGenerator.blockId));
-                eventGenerator.createTrigger("onPlace", Identifier.fromString("fluxapi:mod_block_place"), Map.of("blockId", blockGenerator.blockId));
-                eventGenerator.createTrigger("onBreak", Identifier.fromString("fluxapi:mod_block_break"), Map.of("blockId", blockGenerator.blockId));
-                eventGenerator.register(this);
-                String eventName = eventGenerator.getEventName();
-                String eventJson = eventGenerator.generateJson();
-                registerEvent(eventName, eventJson);
-            }
-
-            for (String stateKey : block.blockStates.keys().toArray()) {
-                BlockState blockState = block.blockStates.get(stateKey);
-                blockState.stringId = stateKey;
-                blockState.initialize(block);
-                Block.allBlockStates.put(blockState.stringId, blockState);
-            }
-            Block.blocksByStringId.put(blockGenerator.blockId.toString(), block);
-            Block.blocksByName.put(blockGenerator.blockName, block);
-        } catch (Exception e) {
-            for(BlockState blockState : block.blockStates.values()) {
-                Block.allBlockStates.remove(blockState.stringId);
+        return commitBlock(stageBlock(modBlock));
+    }
+
+    /**
+     * Runs the generators of a block, this is safe to call from multiple threads
+     * at once as long as the generators of the block are
+     * @param modBlock the block to be generated
+     * @return the generated block, models and events, ready to be committed
+     */
+    public StagedBlock stageBlock(IModBlock modBlock) {
+        try (StartupTracer.Span span = TRACER.begin("block", () -> modBlock.getClass().getSimpleName())) {
+            BlockGenerator blockGenerator;
+            try {
+                blockGenerator = modBlock.getBlockGenerator();
+            } catch (Exception e) {
+                throw new BlockLoadException(modBlock, null, null, null, null, e);
+            }
+            span.rename(() -> "stage " + blockGenerator.blockId);
+
+            JsonValue blockJson;
+            try {
+                blockJson = blockGenerator.generateJsonValue();
+            } catch (Exception e) {
+                throw new BlockLoadException(modBlock, blockGenerator.blockName, blockGenerator.blockId, null, null, e);
+            }
+
+            try {
+                List<BlockModelGenerator> modelGenerators = modBlock.getBlockModelGenerators(blockGenerator.blockId);
+                List<BlockModelFlux> models = new ArrayList<>(modelGenerators.size());
+                for(BlockModelGenerator modelGenerator : modelGenerators) {
+                    models.add(modelGenerator.generateModel());
+                }
+
+                List<BlockEventGenerator> eventGenerators = modBlock.getBlockEventGenerators(blockGenerator.blockId);
+                if(eventGenerators.isEmpty()) {
+                    BlockEventGenerator eventGenerator = new BlockEventGenerator(blockGenerator.blockId, "flux_default");
+                    eventGenerators = List.of(eventGenerator);
+                }
+                List<JsonValue> events = new ArrayList<>(eventGenerators.size());
+                for(BlockEventGenerator eventGenerator : eventGenerators) {
+                    eventGenerator.createTrigger("onInteract", Identifier.fromString("fluxapi:mod_block_interact"), Map.of("blockId", blockGenerator.blockId));
+                    eventGenerator.createTrigger("onPlace", Identifier.fromString("fluxapi:mod_block_place"), Map.of("blockId", blockGenerator.blockId));
+                    eventGenerator.createTrigger("onBreak", Identifier.fromString("fluxapi:mod_block_break"), Map.of("blockId", blockGenerator.blockId));
+                    events.add(eventGenerator.generateJsonValue());
+                }
+
+                return new StagedBlock(modBlock, blockGenerator, blockJson, modelGenerators, models, eventGenerators, events);
+            } catch (Exception e) {
+                throw new BlockLoadException(modBlock, blockGenerator.blockName, blockGenerator.blockId, blockJson.toJson(JsonWriter.OutputType.json), null, e);
+            }
+        }
+    }
+
+    /**
+     * Registers a staged block with all of its textures, models and events,
+     * this has to be called from one thread at a time
+     * @param staged the block generated by {@link #stageBlock(IModBlock)}
+     * @return the block id extracted from the generated json
+     */
+    public Identifier commitBlock(StagedBlock staged) {
+        PreparedBlock prepared = prepareBlock(staged);
+        Block.allBlockStates.putAll(prepared.blockStates);
+        Block.blocksByStringId.put(prepared.blockId().toString(), prepared.block);
+        Block.blocksByName.put(prepared.blockName(), prepared.block);
+        return prepared.blockId();
+    }
+
+    /**
+     * Loads a batch of blocks, all blocks of a mod are either loaded together or
+     * not at all. Nothing of the batch is registered before it is published
+     * @param modBlocks the blocks to be generated
+     * @return the ids of the published blocks, failures are added to {@link #errors}
+     */
+    public List<Identifier> loadBlocks(Collection<? extends IModBlock> modBlocks) {
+        BlockBatch batch = createBatch(modBlocks.size());
+        for(IModBlock modBlock : modBlocks) {
+            try {
+                batch.add(stageBlock(modBlock));
+            } catch (BlockLoadException e) {
+                batch.failed(e);
+            }
+        }
+        return batch.publish();
+    }
+
+    /**
+     * @param expectedSize the number of blocks which will be added
+     * @return an empty batch of blocks
+     */
+    public BlockBatch createBatch(int expectedSize) {
+        return new BlockBatch(expectedSize);
+    }
+
+    /**
+     * A batch of blocks grouped by the mod owning them. Adding a block only
+     * collects it, {@link #publish()} registers the textures, models, events
+     * and states of one mod after another and takes a mod back as a whole when
+     * one of its blocks fails. Blocks of data mods have no owning mod, each of
+     * them stands alone. Only use a batch from one thread at a time
+     */
+    public class BlockBatch {
+
+        private final Map<String, List<StagedBlock>> mods = new LinkedHashMap<>();
+        private final Set<String> failedMods = new HashSet<>();
+        private final int expectedSize;
+
+        private BlockBatch(int expectedSize) {
+            this.expectedSize = expectedSize;
+        }
+
+        /**
+         * Collects a staged block, nothing of it is registered before publishing
+         * @param staged the block generated by {@link BlockLoader#stageBlock(IModBlock)}
+         */
+        public void add(StagedBlock staged) {
+            mods.computeIfAbsent(ownerOf(staged.modBlock), owner -> new ArrayList<>()).add(staged);
+        }
+
+        /**
+         * Records a block which could not be staged, the other blocks of its mod
+         * are discarded when publishing
+         */
+        public void failed(BlockLoadException e) {
+            LOGGER.error("Cannot load block: \"{}\"", e.blockName, e);
+            errors.add(e);
+            if(e.iModBlock != null) {
+                failedMods.add(ownerOf(e.iModBlock));
+            }
+        }
+
+        /**
+         * Registers the blocks of every mod which loaded completely, then adds
+         * them to {@link FluxRegistries#BLOCKS} and to the block maps
+         * @return the ids of the published blocks in the order they were added
+         * @throws IllegalStateException if {@link FluxRegistries#BLOCKS} is frozen,
+         *                               in which case nothing is registered
+         */
+        public List<Identifier> publish() {
+            if(FluxRegistries.BLOCKS.isFrozen()) {
+                throw new IllegalStateException("Cannot publish blocks, the block registry is frozen");
+            }
+
+            Map<String, BlockState> blockStates = new HashMap<>();
+            Map<String, Block> blocksByStringId = new HashMap<>();
+            Map<String, Block> blocksByName = new HashMap<>();
+            Map<Identifier, IModBlock> modBlocks = new LinkedHashMap<>();
+            List<Identifier> blockIds = new ArrayList<>(expectedSize);
+            List<Runnable> published = new ArrayList<>();
+            try {
+                for(Map.Entry<String, List<StagedBlock>> mod : mods.entrySet()) {
+                    String owner = mod.getKey();
+                    if(failedMods.contains(owner)) {
+                        LOGGER.warn("Discarded {} blocks of \"{}\", another of its blocks failed to load", mod.getValue().size(), owner);
+                        continue;
+                    }
+
+                    List<PreparedBlock> preparedBlocks = prepareMod(owner, mod.getValue(), blocksByStringId, blocksByName, published);
+                    for(PreparedBlock prepared : preparedBlocks) {
+                        Identifier blockId = prepared.blockId();
+                        blockStates.putAll(prepared.blockStates);
+                        blocksByStringId.put(blockId.toString(), prepared.block);
+                        blocksByName.put(prepared.blockName(), prepared.block);
+                        modBlocks.put(blockId, prepared.staged.modBlock);
+                        blockIds.add(blockId);
+                    }
+                }
+
+                // the registry is the last step which can throw, the block maps are only written after it
+                FluxRegistries.BLOCKS.registerAll(modBlocks);
+            } catch (RuntimeException e) {
+                undo(published);
+                throw e;
+            } finally {
+                mods.clear();
+                failedMods.clear();
+            }
+
+            Block.allBlockStates.putAll(blockStates);
+            Block.blocksByStringId.putAll(blocksByStringId);
+            Block.blocksByName.putAll(blocksByName);
+            return blockIds;
+        }
+
+        /**
+         * Registers everything of the blocks of one mod, if one of them fails
+         * the registrations of all of them are taken back
+         * @param published collects how to take back the registrations of the mod
+         * @return the prepared blocks, empty if the mod failed
+         */
+        private List<PreparedBlock> prepareMod(String owner, List<StagedBlock> stagedBlocks, Map<String, Block> blocksByStringId,
+                                               Map<String, Block> blocksByName, List<Runnable> published) {
+            // ids and names are checked before anything of the mod is registered
+            Set<String> ids = new HashSet<>();
+            Set<String> names = new HashSet<>();
+            for(StagedBlock staged : stagedBlocks) {
+                BlockGenerator blockGenerator = staged.blockGenerator;
+                String blockId = blockGenerator.blockId.toString();
+                String blockName = blockGenerator.blockName;
+                String duplicate = null;
+                if(Block.blocksByStringId.containsKey(blockId) || blocksByStringId.containsKey(blockId) || !ids.add(blockId)) {
+                    duplicate = "id \"" + blockId + "\"";
+                } else if(Block.blocksByName.containsKey(blockName) || blocksByName.containsKey(blockName) || !names.add(blockName)) {
+                    duplicate = "name \"" + blockName + "\"";
+                }
+                if(duplicate != null) {
+                    IllegalStateException cause = new IllegalStateException("Duplicate block " + duplicate);
+                    discard(owner, stagedBlocks.size(), new BlockLoadException(staged.modBlock, blockName, blockGenerator.blockId, null, null, cause));
+                    return List.of();
+                }
+            }
+
+            List<Runnable> undo = new ArrayList<>();
+            List<PreparedBlock> preparedBlocks = new ArrayList<>(stagedBlocks.size());
+            BlockLoader.this.undo = undo;
+            try {
+                for(StagedBlock staged : stagedBlocks) {
+                    PreparedBlock prepared = prepareBlock(staged);
+                    undo.add(() -> Block.allBlocks.removeValue(prepared.block, true));
+                    preparedBlocks.add(prepared);
+                }
+            } catch (BlockLoadException e) {
+                undo(undo);
+                discard(owner, stagedBlocks.size(), e);
+                return List.of();
+            } finally {
+                BlockLoader.this.undo = null;
+            }
+            published.addAll(undo);
+            return preparedBlocks;
+        }
+
+        private void discard(String owner, int count, BlockLoadException e) {
+            LOGGER.error("Cannot load block: \"{}\"", e.blockName, e);
+            errors.add(e);
+            LOGGER.warn("Discarded {} blocks of \"{}\"", count, owner);
+        }
+
+    }
+
+    /**
+     * @return the mod owning a block, blocks with the same owner are published or discarded together
+     */
+    private static String ownerOf(IModBlock modBlock) {
+        if(modBlock instanceof DataModBlock dataModBlock) {
+            return "data:" + dataModBlock.blockName;
+        }
+        CodeSource source = modBlock.getClass().getProtectionDomain().getCodeSource();
+        // locations are compared as strings, URL.equals may resolve host names
+        return source != null && source.getLocation() != null ? source.getLocation().toString() : modBlock.getClass().getName();
+    }
+
+    private static void undo(List<Runnable> undo) {
+        for(int i = undo.size() - 1; i >= 0; i--) {
+            undo.get(i).run();
+        }
+    }
+
+    private record PreparedBlock(StagedBlock staged, Block block, Map<String, BlockState> blockStates) {
+        Identifier blockId() {
+            return staged.blockGenerator.blockId;
+        }
+
+        String blockName() {
+            return staged.blockGenerator.blockName;
+        }
+    }
+
+    /**
+     * Registers everything of a staged block except the block itself, the block
+     * and its states are only returned and not yet added to the block maps
+     */
+    private PreparedBlock prepareBlock(StagedBlock staged) {
+        IModBlock modBlock = staged.modBlock;
+        BlockGenerator blockGenerator = staged.blockGenerator;
+        JsonValue blockJson = staged.blockJson;
+        try (StartupTracer.Span ignored = TRACER.begin("block", () -> "commit " + blockGenerator.blockId)) {
+            try {
+                blockGenerator.register(this);
+            } catch (Exception e) {
+                throw new BlockLoadException(modBlock, blockGenerator.blockName, blockGenerator.blockId, null, null, e);
+            }
+
+            Block block;
+            try {
+                block = json.readValue(Block.class, blockJson);
+            } catch (Exception e) {
+                throw new BlockLoadException(modBlock, blockGenerator.blockName, blockGenerator.blockId, blockJson.toJson(JsonWriter.OutputType.json), null, e);
+            }
+
+            try {
+                for(int i = 0; i < staged.modelGenerators.size(); i++) {
+                    BlockModelGenerator modelGenerator = staged.modelGenerators.get(i);
+                    modelGenerator.register(this);
+                    String modelName = modelGenerator.getModelName();
+                    int rotXZ = 0;
+                    registerBlockModel(modelName, rotXZ, staged.models.get(i));
+                }
+
+                for(int i = 0; i < staged.eventGenerators.size(); i++) {
+                    BlockEventGenerator eventGenerator = staged.eventGenerators.get(i);
+                    eventGenerator.register(this);
+                    String eventName = eventGenerator.getEventName();
+                    registerEvent(eventName, staged.events.get(i));
+                }
+
+                String[] stateKeys = block.blockStates.keys().toArray();
+                Map<String, BlockState> blockStates = new HashMap<>(capacity(stateKeys.length));
+                for (String stateKey : stateKeys) {
+                    BlockState blockState = block.blockStates.get(stateKey);
+                    blockState.stringId = stateKey;
+                    blockState.initialize(block);
+                    blockStates.put(blockState.stringId, blockState);
+                }
+                return new PreparedBlock(staged, block, blockStates);
+            } catch (Exception e) {
+                // the block maps are only written when publishing, the block only has to leave allBlocks
+                Block.allBlocks.removeValue(block, true);
+                throw new BlockLoadException(modBlock, blockGenerator.blockName, blockGenerator.blockId, blockJson.toJson(JsonWriter.OutputType.json), block, e);
             }
-            Block.allBlocks.removeValue(block, true);
-            Block.blocksByStringId.remove(blockGenerator.blockId.toString());
-            Block.blocksByName.remove(blockGenerator.blockName);
-            throw new BlockLoadException(modBlock, blockGenerator.blockName, blockGenerator.blockId, blockJson, block, e);
         }
-        return blockGenerator.blockId;
+    }
+
+    private static int capacity(int size) {
+        return (int) (size / 0.75f) + 1;
     }
 
     public void registerFinalizers() {
+        registerFinalizers(Runnable::run);
+    }
+
+    /**
+     * Bakes the geometry of all models and registers the finalizers, which only
+     * add the textures of the models on the render thread
+     * @param executor runs the models of one parent level at the same time
+     */
+    public void registerFinalizers(Executor executor) {
+
+        // bake models level by level, every parent is baked before its children
+        List<List<BlockModel>> levels = factory.getLevels();
+        for (List<BlockModel> level : levels) {
+            List<CompletableFuture<Void>> baked = new ArrayList<>(level.size());
+            for (BlockModel model : level) {
+                if(model instanceof BlockModelFlux flux) {
+                    baked.add(CompletableFuture.runAsync(flux::bake, executor).exceptionally(e -> {
+                        // a failed bake leaves the model untouched, initialize bakes it again on the render thread
+                        LOGGER.warn("Cannot bake model '{}'", flux.modelName, e);
+                        return null;
+                    }));
+                }
+            }
+            CompletableFuture.allOf(baked.toArray(CompletableFuture[]::new)).join();
+        }
 
         // initialize models, fewer parents first order
         // it's very critical that registries are run in order here
-        for (BlockModel model : factory.sort()) {
-            if(model instanceof BlockModelFlux flux) {
-                FluxRegistries.BLOCK_MODEL_FINALIZERS.register(Identifier.fromString(flux.modelName + "_" + flux.rotXZ), flux::initialize);
+        for (List<BlockModel> level : levels) {
+            for (BlockModel model : level) {
+                if(model instanceof BlockModelFlux flux) {
+                    FluxRegistries.BLOCK_MODEL_FINALIZERS.register(Identifier.fromString(flux.modelName + "_" + flux.rotXZ), flux::initialize);
+                }
             }
         }
         FluxRegistries.BLOCK_MODEL_FINALIZERS.freeze();
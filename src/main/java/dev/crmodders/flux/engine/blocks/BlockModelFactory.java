@@ -1,8 +1,8 @@
 package dev.crmodders.flux.engine.blocks;
 
-import com.badlogic.gdx.utils.Json;
 import dev.crmodders.flux.assets.VanillaAssetLocations;
 import dev.crmodders.flux.engine.blocks.models.BlockModelFlux;
+import dev.crmodders.flux.engine.blocks.models.BlockModelTemplate;
 import finalforeach.cosmicreach.blocks.BlockState;
 import finalforeach.cosmicreach.rendering.blockmodels.BlockModel;
 import finalforeach.cosmicreach.rendering.blockmodels.IBlockModelInstantiator;
@@ -10,15 +10,50 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static dev.crmodders.flux.engine.blocks.AtlasCache.CACHE;
 
 public class BlockModelFactory implements IBlockModelInstantiator {
 
     public record InstanceKey(String modelName, int rotXZ) {}
 
-    public final Map<InstanceKey, BlockModel> models = new LinkedHashMap<>();
+    private static final Comparator<InstanceKey> KEY_ORDER = Comparator.comparing(InstanceKey::modelName).thenComparingInt(InstanceKey::rotXZ);
+
+    /**
+     * All models which finished loading, models may be added from any thread
+     */
+    public final Map<InstanceKey, BlockModel> models = new ConcurrentHashMap<>();
+
+    private record Loading(Thread owner, CompletableFuture<BlockModel> future) {}
+
+    /**
+     * Models which are being created right now, by the thread creating them
+     */
+    private final Map<InstanceKey, Loading> loading = new ConcurrentHashMap<>();
+    /**
+     * The model every thread waits for while another thread creates it
+     */
+    private final Map<Thread, InstanceKey> waitingFor = new ConcurrentHashMap<>();
+
+    /**
+     * Parsed model json by location, shared by all rotations and children of a model
+     */
+    public final ModelSourceCache sources = new ModelSourceCache();
+    /**
+     * Parsed model json registered by mods, by the json itself, kept apart from
+     * the sources so registered json never replaces a model on disk
+     */
+    private final Map<String, BlockModelTemplate> registeredSources = new ConcurrentHashMap<>();
 
     private static final Logger LOGGER = LoggerFactory.getLogger("FluxAPI / BlockModelFactory");
 
@@ -29,106 +64,221 @@ public class BlockModelFactory implements IBlockModelInstantiator {
         return modelName;
     }
 
-    public void registerBlockModel(String modelName, int rotXZ, BlockModel model) {
-        modelName = getNotShitModelName(modelName);
-        final InstanceKey key = new InstanceKey(modelName, rotXZ);
-        if (models.containsKey(key)) {
-            return;
+    /**
+     * Returns the model of the key, creating it at most once across all threads.
+     * Other threads asking for a model while it is created wait for it, a model
+     * which could not be created is tried again the next time it is asked for
+     * @param creator creates the model, including its parents, may return null
+     */
+    private BlockModel computeOnce(InstanceKey key, Supplier<BlockModel> creator) {
+        BlockModel model = models.get(key);
+        if (model != null) {
+            return model;
         }
-        models.put(key, model);
-    }
 
-    public BlockModel createFromJson(String modelName, int rotXZ, String modelJson) {
-        modelName = getNotShitModelName(modelName);
-        final InstanceKey key = new InstanceKey(modelName, rotXZ);
-        if (models.containsKey(key)) {
-            return models.get(key);
+        Thread thread = Thread.currentThread();
+        Loading loading = new Loading(thread, new CompletableFuture<>());
+        Loading running = this.loading.putIfAbsent(key, loading);
+        if (running != null) {
+            return await(key, running);
         }
 
-        BlockModelFlux model = BlockModelFlux.fromJson(modelJson, modelName, rotXZ);
-        if (model.parent != null) {
-            getInstance(model.parent, rotXZ);
+        try {
+            // another thread may have published the model after the first lookup
+            model = models.get(key);
+            if (model == null) {
+                model = creator.get();
+                if (model != null) {
+                    models.put(key, model);
+                }
+            }
+            loading.future.complete(model);
+            return model;
+        } catch (RuntimeException e) {
+            loading.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.loading.remove(key, loading);
         }
+    }
 
-        models.put(key, model);
-        return model;
+    /**
+     * Waits for a model created by another thread, a parent chain which leads
+     * back to a model this thread is creating is reported instead of waiting forever
+     */
+    private BlockModel await(InstanceKey key, Loading running) {
+        Thread thread = Thread.currentThread();
+        waitingFor.put(thread, key);
+        try {
+            Set<Thread> seen = new HashSet<>();
+            Loading next = running;
+            while (next != null && seen.add(next.owner)) {
+                if (next.owner == thread) {
+                    throw new IllegalStateException("model '" + key.modelName + "' has a cyclic parent chain");
+                }
+                InstanceKey awaited = waitingFor.get(next.owner);
+                next = awaited == null ? null : loading.get(awaited);
+            }
+            return running.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        } finally {
+            waitingFor.remove(thread);
+        }
     }
 
-    @Override
-    public BlockModel getInstance(String modelName, int rotXZ) {
+    public void registerBlockModel(String modelName, int rotXZ, BlockModel model) {
         modelName = getNotShitModelName(modelName);
         final InstanceKey key = new InstanceKey(modelName, rotXZ);
-        if (models.containsKey(key)) {
-            return models.get(key);
-        }
+        computeOnce(key, () -> model);
+    }
 
-        String modelJson = VanillaAssetLocations.getBlockModel(modelName).locate().readString();
-        BlockModelFlux model = BlockModelFlux.fromJson(modelJson, modelName, rotXZ);
-        if (model.parent != null) {
-            getInstance(model.parent, rotXZ);
-        }
+    /**
+     * @return the model if it finished loading, null otherwise
+     */
+    public BlockModel getLoadedModel(String modelName, int rotXZ) {
+        return models.get(new InstanceKey(getNotShitModelName(modelName), rotXZ));
+    }
 
-        models.put(key, model);
-        return model;
+    /**
+     * Removes a model again, only if it is still the given instance
+     * @return true if the model was removed
+     */
+    public boolean removeModel(String modelName, int rotXZ, BlockModel model) {
+        return models.remove(new InstanceKey(getNotShitModelName(modelName), rotXZ), model);
+    }
+
+    public BlockModel createFromJson(String modelName, int rotXZ, String modelJson) {
+        final String name = getNotShitModelName(modelName);
+        final InstanceKey key = new InstanceKey(name, rotXZ);
+        return computeOnce(key, () -> {
+            BlockModelTemplate template = registeredSources.computeIfAbsent(modelJson, BlockModelTemplate::fromJson);
+            BlockModelFlux model = template.instantiate(name, rotXZ);
+            if (model.parent != null) {
+                getInstance(model.parent, rotXZ);
+            }
+            return model;
+        });
+    }
+
+    public BlockModel createFromModel(String modelName, int rotXZ, BlockModelFlux model) {
+        final String name = getNotShitModelName(modelName);
+        final InstanceKey key = new InstanceKey(name, rotXZ);
+        return computeOnce(key, () -> {
+            model.modelName = name;
+            model.rotXZ = rotXZ;
+            if (model.parent != null) {
+                getInstance(model.parent, rotXZ);
+            }
+            return model;
+        });
+    }
+
+    @Override
+    public BlockModel getInstance(String modelName, int rotXZ) {
+        final String name = getNotShitModelName(modelName);
+        final InstanceKey key = new InstanceKey(name, rotXZ);
+        return computeOnce(key, () -> {
+            BlockModelTemplate template = sources.get(VanillaAssetLocations.getBlockModel(name), location -> BlockModelTemplate.fromJson(CACHE.readString(location)));
+            BlockModelFlux model = template.instantiate(name, rotXZ);
+            if (model.parent != null) {
+                getInstance(model.parent, rotXZ);
+            }
+            return model;
+        });
     }
 
     @Override
     public void createGeneratedModelInstance(BlockState blockState, BlockModel parentModel, String parentModelName, String modelName, int rotXZ) {
-        modelName = getNotShitModelName(modelName);
-        final InstanceKey key = new InstanceKey(modelName, rotXZ);
-        if (models.containsKey(key)) {
-            return;
-        }
+        final String name = getNotShitModelName(modelName);
+        final InstanceKey key = new InstanceKey(name, rotXZ);
+        computeOnce(key, () -> {
+            if (parentModel instanceof BlockModelFlux fluxParent) {
+                BlockModelFlux model = new BlockModelFlux(name, rotXZ, parentModelName, fluxParent.getTextures());
+                if (model.parent != null) {
+                    getInstance(model.parent, rotXZ);
+                }
+                return model;
+            } else {
+                LOGGER.error("can't create generated instances for '{}'", parentModel.getClass().getSimpleName());
+                return null;
+            }
+        });
+    }
 
-        if (parentModel instanceof BlockModelFlux fluxParent) {
-            Json json = new Json();
-            json.setTypeName(null);
+    /**
+     * Groups the models by the length of their parent chain, every model is in a
+     * later level than its parent. Models within one level don't depend on each
+     * other and can be baked at the same time. The order does not depend on the
+     * order in which the models were loaded, within a level models are sorted by key
+     * @return the levels, models without a parent first
+     */
+    public List<List<BlockModel>> getLevels() {
+        loadMissingParents();
 
-            String modelJson = "{\"parent\": \"" + parentModelName + "\", \"textures\":" + json.toJson(fluxParent.getTextures()) + "}";
+        List<InstanceKey> keys = new ArrayList<>(models.keySet());
+        keys.sort(KEY_ORDER);
 
-            BlockModelFlux model = BlockModelFlux.fromJson(modelJson, modelName, rotXZ);
-            if (model.parent != null) {
-                getInstance(model.parent, rotXZ);
+        Map<InstanceKey, Integer> depths = new HashMap<>(keys.size() * 2);
+        List<List<BlockModel>> levels = new ArrayList<>();
+        for (InstanceKey key : keys) {
+            int depth = getDepth(key, depths, new HashSet<>());
+            while (levels.size() <= depth) {
+                levels.add(new ArrayList<>());
             }
-            models.put(key, model);
-        } else {
-            LOGGER.error("can't create generated instances for '{}'", parentModel.getClass().getSimpleName());
+            levels.get(depth).add(models.get(key));
         }
+        return levels;
     }
 
-    private int getNumberOfParents(BlockModelFlux model) {
-        int n = 0;
-        String parent = model.parent;
-        while (parent != null) {
-            BlockModelFlux parentModel = null;
-
-            InstanceKey parentKey;
-            if (models.containsKey(parentKey = new InstanceKey(parent, 0)))
-                parentModel = (BlockModelFlux) models.get(parentKey);
-            else if (models.containsKey(parentKey = new InstanceKey(parent, 90)))
-                parentModel = (BlockModelFlux) models.get(parentKey);
-            else if (models.containsKey(parentKey = new InstanceKey(parent, 180)))
-                parentModel = (BlockModelFlux) models.get(parentKey);
-            else if (models.containsKey(parentKey = new InstanceKey(parent, 270)))
-                parentModel = (BlockModelFlux) models.get(parentKey);
-
-            parent = parentModel == null ? null : parentModel.parent;
-            n++;
+    /**
+     * Loads every parent which is not loaded yet, so no parent is created lazily
+     * while its children are baked
+     */
+    private void loadMissingParents() {
+        for (Map.Entry<InstanceKey, BlockModel> entry : new ArrayList<>(models.entrySet())) {
+            if (entry.getValue() instanceof BlockModelFlux model && model.parent != null) {
+                InstanceKey key = entry.getKey();
+                if (!models.containsKey(new InstanceKey(getNotShitModelName(model.parent), key.rotXZ))) {
+                    try {
+                        getInstance(model.parent, key.rotXZ);
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Cannot load parent '{}' of model '{}'", model.parent, key.modelName, e);
+                    }
+                }
+            }
         }
-        return n;
     }
 
-    public int compare(BlockModel o1, BlockModel o2) {
-        if (o1 instanceof BlockModelFlux f1 && o2 instanceof BlockModelFlux f2) {
-            return Integer.compare(getNumberOfParents(f1), getNumberOfParents(f2));
+    private int getDepth(InstanceKey key, Map<InstanceKey, Integer> depths, Set<InstanceKey> visiting) {
+        Integer known = depths.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        int depth = 0;
+        if (models.get(key) instanceof BlockModelFlux model && model.parent != null) {
+            InstanceKey parentKey = new InstanceKey(getNotShitModelName(model.parent), key.rotXZ);
+            if (!visiting.add(key)) {
+                LOGGER.error("model '{}' has a cyclic parent chain", key.modelName);
+            } else if (models.containsKey(parentKey)) {
+                depth = getDepth(parentKey, depths, visiting) + 1;
+            }
         }
-        return 0;
+        depths.put(key, depth);
+        return depth;
     }
 
+    /**
+     * @return all models, every model after its parent
+     */
     public List<BlockModel> sort() {
-        List<BlockModel> models = new ArrayList<>(this.models.values());
-        models.sort(this::compare);
+        List<BlockModel> models = new ArrayList<>(this.models.size());
+        for (List<BlockModel> level : getLevels()) {
+            models.addAll(level);
+        }
         return models;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package dev.crmodders.flux.engine.blocks;
+
+import dev.crmodders.flux.engine.blocks.models.BlockModelTemplate;
+import dev.crmodders.flux.tags.ResourceLocation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Parsed model sources by their resolved location, so rotations, children and
+ * generated instances of a model share one parse. The cache grows without limit
+ * while loading and only keeps the most recently used sources once {@link #trim()}
+ * was called
+ */
+public class ModelSourceCache {
+
+    public static final int RESIDENT_SOURCES = 64;
+
+    private final LruMap sources = new LruMap();
+    private int hits;
+    private int misses;
+
+    private static class LruMap extends LinkedHashMap<ResourceLocation, BlockModelTemplate> {
+
+        private int limit = Integer.MAX_VALUE;
+
+        LruMap() {
+            super(256, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ResourceLocation, BlockModelTemplate> eldest) {
+            return size() > limit;
+        }
+    }
+
+    /**
+     * Returns the cached source or parses it, the parser runs outside of any lock
+     * and may read files
+     */
+    public BlockModelTemplate get(ResourceLocation location, Function<ResourceLocation, BlockModelTemplate> parser) {
+        synchronized (sources) {
+            BlockModelTemplate template = sources.get(location);
+            if (template != null) {
+                hits++;
+                return template;
+            }
+            misses++;
+        }
+
+        BlockModelTemplate parsed = parser.apply(location);
+        synchronized (sources) {
+            BlockModelTemplate raced = sources.putIfAbsent(location, parsed);
+            return raced != null ? raced : parsed;
+        }
+    }
+
+    /**
+     * Evicts all but the {@link #RESIDENT_SOURCES} most recently used sources and
+     * keeps the cache bounded from now on, call this once loading finished
+     */
+    public void trim() {
+        synchronized (sources) {
+            sources.limit = RESIDENT_SOURCES;
+            while (sources.size() > RESIDENT_SOURCES) {
+                sources.remove(sources.keySet().iterator().next());
+            }
+        }
+    }
+
+    public int getHits() {
+        synchronized (sources) {
+            return hits;
+        }
+    }
+
+    public int getMisses() {
+        synchronized (sources) {
+            return misses;
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package dev.crmodders.flux.engine.blocks.models;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ambient occlusion ids of the four corners of a face for every combination
+ * of the neighbours it depends on. The neighbour bits are gathered from the
+ * opaque bitmask into a table index, so meshing needs one lookup per face instead
+ * of twelve bitmask tests. Tables only depend on the ao bitmasks and are shared
+ * by all faces facing the same direction
+ */
+public final class AoTable {
+
+    /**
+     * The table of faces without ambient occlusion, all corners are unoccluded
+     */
+    public static final AoTable NONE = new AoTable(new int[0], new byte[] { (byte) 0xFF });
+
+    private static final Map<List<Integer>, AoTable> TABLES = new ConcurrentHashMap<>();
+
+    private final int[] shifts;
+    private final byte[] aoIds;
+
+    private AoTable(int[] shifts, byte[] aoIds) {
+        this.shifts = shifts;
+        this.aoIds = aoIds;
+    }
+
+    /**
+     * @param aoBitmasks three bitmasks for each of the four corners, starting at offset
+     * @return the table for these bitmasks, or null if they are not single bits
+     */
+    public static AoTable of(int[] aoBitmasks, int offset) {
+        int[] masks = Arrays.copyOfRange(aoBitmasks, offset, offset + 12);
+        List<Integer> key = Arrays.stream(masks).boxed().toList();
+        AoTable table = TABLES.get(key);
+        if (table == null) {
+            table = create(masks);
+            if (table == null) {
+                return null;
+            }
+            TABLES.putIfAbsent(key, table);
+        }
+        return table;
+    }
+
+    private static AoTable create(int[] masks) {
+        int[] distinct = Arrays.stream(masks).filter(mask -> mask != 0).distinct().toArray();
+        if (distinct.length == 0) {
+            return NONE;
+        }
+        if (distinct.length > 8) {
+            return null;
+        }
+
+        int[] shifts = new int[distinct.length];
+        for (int k = 0; k < distinct.length; k++) {
+            if (Integer.bitCount(distinct[k]) != 1) {
+                return null;
+            }
+            shifts[k] = Integer.numberOfTrailingZeros(distinct[k]);
+        }
+
+        byte[] aoIds = new byte[1 << distinct.length];
+        for (int index = 0; index < aoIds.length; index++) {
+            int opaqueBitmask = 0;
+            for (int k = 0; k < distinct.length; k++) {
+                if ((index & (1 << k)) != 0) {
+                    opaqueBitmask |= distinct[k];
+                }
+            }
+            aoIds[index] = (byte) compute(opaqueBitmask, masks, 0);
+        }
+        return new AoTable(shifts, aoIds);
+    }
+
+    /**
+     * Computes the four packed ao ids without a table, 2 bits per corner, A in the lowest bits
+     */
+    public static int compute(int opaqueBitmask, int[] aoBitmasks, int offset) {
+        int packed = 0;
+        for (int corner = 0; corner < 4; corner++) {
+            int i = offset + corner * 3;
+            int aoId = (((opaqueBitmask & aoBitmasks[i]) == 0) ? 1 : 0) + (((opaqueBitmask & aoBitmasks[i + 1]) == 0) ? 1 : 0) + (((opaqueBitmask & aoBitmasks[i + 2]) == 0) ? 1 : 0);
+            packed |= aoId << (corner * 2);
+        }
+        return packed;
+    }
+
+    /**
+     * @return the four packed ao ids, 2 bits per corner, A in the lowest bits
+     */
+    public int lookup(int opaqueBitmask) {
+        final int[] shifts = this.shifts;
+        int index = 0;
+        for (int k = 0; k < shifts.length; k++) {
+            index |= ((opaqueBitmask >>> shifts[k]) & 1) << k;
+        }
+        return aoIds[index] & 0xFF;
+    }
+
+}
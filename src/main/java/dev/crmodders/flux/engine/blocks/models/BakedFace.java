@@ -0,0 +1,63 @@
+package dev.crmodders.flux.engine.blocks.models;
+
+import java.util.Arrays;
+
+/**
+ * The texture independent part of a baked face, the four corners are stored in
+ * vertex order A, B, C, D. Two faces with equal content are interchangeable, the
+ * arrays are copied in and out so a face can't be changed once it was created
+ * @param cullingMask adjacent bitmask culling this face, 0 if it is never culled
+ * @param ambientocclusion whether ambient occlusion is applied
+ * @param positions x, y, z of every corner relative to the block origin
+ * @param vertexIndices light level index of every corner
+ * @param aoBitmasks three diagonal bitmasks per corner
+ */
+public record BakedFace(int cullingMask, boolean ambientocclusion, float[] positions, int[] vertexIndices, int[] aoBitmasks) {
+
+    public BakedFace {
+        positions = positions.clone();
+        vertexIndices = vertexIndices.clone();
+        aoBitmasks = aoBitmasks.clone();
+    }
+
+    @Override
+    public float[] positions() {
+        return positions.clone();
+    }
+
+    @Override
+    public int[] vertexIndices() {
+        return vertexIndices.clone();
+    }
+
+    @Override
+    public int[] aoBitmasks() {
+        return aoBitmasks.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BakedFace f)) return false;
+        return cullingMask == f.cullingMask
+                && ambientocclusion == f.ambientocclusion
+                && Arrays.equals(positions, f.positions)
+                && Arrays.equals(vertexIndices, f.vertexIndices)
+                && Arrays.equals(aoBitmasks, f.aoBitmasks);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * cullingMask + Boolean.hashCode(ambientocclusion);
+        result = 31 * result + Arrays.hashCode(positions);
+        result = 31 * result + Arrays.hashCode(vertexIndices);
+        result = 31 * result + Arrays.hashCode(aoBitmasks);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "BakedFace[cullingMask=" + cullingMask + ", positions=" + Arrays.toString(positions) + "]";
+    }
+
+}
@@ -0,0 +1,151 @@
+package dev.crmodders.flux.engine.blocks.models;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Baked faces of a model without any texture information. Geometry is interned
+ * by content, so every full cube of every mod shares one instance and only the
+ * uv indices of the {@link BlockModelFlux} differ. The faces are packed into
+ * primitive arrays, face i uses the entries starting at i times the per face
+ * stride, so meshing reads them front to back. Faces are grouped into buckets by
+ * their culling mask, so a whole bucket is skipped with one test
+ */
+public final class BakedGeometry {
+
+    public static final BakedGeometry EMPTY = new BakedGeometry(List.of());
+
+    private static final Map<BakedGeometry, BakedGeometry> INTERNED = new ConcurrentHashMap<>();
+
+    public final int faceCount;
+    /** 1 per face, 0 if the face is never culled */
+    public final int[] cullingMasks;
+    /** 12 per face, x, y, z of the corners A, B, C, D */
+    public final float[] positions;
+    /** 4 per face, light level index of every corner */
+    public final int[] vertexIndices;
+    /** 12 per face, three diagonal bitmasks per corner, all 0 without ambient occlusion */
+    public final int[] aoBitmasks;
+    /** 1 per face, null if the ao ids of the face have to be computed from the bitmasks */
+    public final AoTable[] aoTables;
+    /** the culling mask shared by all faces of every bucket, faces which are never culled come first */
+    public final int[] bucketMasks;
+    /** the first face of every bucket, followed by the face count */
+    public final int[] bucketStarts;
+    /** the opaque neighbours hiding every face at once, 0 if some face is never hidden */
+    public final int hiddenMask;
+    // the index of every face in the list it was baked from
+    private final int[] order;
+    private final int hash;
+
+    private BakedGeometry(List<BakedFace> faces) {
+        faceCount = faces.size();
+        cullingMasks = new int[faceCount];
+        positions = new float[faceCount * 12];
+        vertexIndices = new int[faceCount * 4];
+        aoBitmasks = new int[faceCount * 12];
+        aoTables = new AoTable[faceCount];
+
+        // stable sort by culling mask, never culled faces have mask 0 and come first
+        order = IntStream.range(0, faceCount).boxed()
+                .sorted(Comparator.comparingInt(i -> faces.get(i).cullingMask()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        for (int i = 0; i < faceCount; i++) {
+            BakedFace face = faces.get(order[i]);
+            cullingMasks[i] = face.cullingMask();
+            System.arraycopy(face.positions(), 0, positions, i * 12, 12);
+            System.arraycopy(face.vertexIndices(), 0, vertexIndices, i * 4, 4);
+            if (face.ambientocclusion()) {
+                System.arraycopy(face.aoBitmasks(), 0, aoBitmasks, i * 12, 12);
+            }
+            aoTables[i] = AoTable.of(aoBitmasks, i * 12);
+        }
+
+        IntArray masks = new IntArray();
+        IntArray starts = new IntArray();
+        for (int i = 0; i < faceCount; i++) {
+            if (i == 0 || cullingMasks[i] != cullingMasks[i - 1]) {
+                masks.add(cullingMasks[i]);
+                starts.add(i);
+            }
+        }
+        starts.add(faceCount);
+        bucketMasks = masks.toArray();
+        bucketStarts = starts.toArray();
+
+        int hidden = 0;
+        for (int mask : bucketMasks) {
+            // a face is hidden by any of the bits of its mask, only single bits can be combined
+            if (Integer.bitCount(mask) != 1) {
+                hidden = 0;
+                break;
+            }
+            hidden |= mask;
+        }
+        hiddenMask = hidden;
+
+        int hash = Arrays.hashCode(cullingMasks);
+        hash = 31 * hash + Arrays.hashCode(positions);
+        hash = 31 * hash + Arrays.hashCode(vertexIndices);
+        hash = 31 * hash + Arrays.hashCode(aoBitmasks);
+        hash = 31 * hash + Arrays.hashCode(order);
+        this.hash = hash;
+    }
+
+    /**
+     * @return the shared geometry with exactly these faces, in this order
+     */
+    public static BakedGeometry intern(List<BakedFace> faces) {
+        if (faces.isEmpty()) {
+            return EMPTY;
+        }
+        BakedGeometry geometry = new BakedGeometry(faces);
+        BakedGeometry interned = INTERNED.putIfAbsent(geometry, geometry);
+        return interned == null ? geometry : interned;
+    }
+
+    /**
+     * Sorts per face data of a model into the bucket order of the faces
+     * @param uvIndices 4 per face, in the order the faces were baked in
+     */
+    public int[] sortUvIndices(int[] uvIndices) {
+        int[] sorted = new int[uvIndices.length];
+        for (int i = 0; i < faceCount; i++) {
+            System.arraycopy(uvIndices, order[i] * 4, sorted, i * 4, 4);
+        }
+        return sorted;
+    }
+
+    /**
+     * @return the number of distinct geometries baked so far
+     */
+    public static int getInternedCount() {
+        return INTERNED.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BakedGeometry g)) return false;
+        return hash == g.hash
+                && Arrays.equals(cullingMasks, g.cullingMasks)
+                && Arrays.equals(positions, g.positions)
+                && Arrays.equals(vertexIndices, g.vertexIndices)
+                && Arrays.equals(aoBitmasks, g.aoBitmasks)
+                && Arrays.equals(order, g.order);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+}
@@ -1,9 +1,9 @@
 package dev.crmodders.flux.engine.blocks.models;
 
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.utils.*;
 import dev.crmodders.flux.engine.GameLoader;
+import dev.crmodders.flux.engine.StartupTracer;
 import finalforeach.cosmicreach.GameSingletons;
 import finalforeach.cosmicreach.RuntimeInfo;
 import finalforeach.cosmicreach.rendering.IMeshData;
@@ -15,6 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
+import static dev.crmodders.flux.engine.StartupTracer.TRACER;
+
 public class BlockModelFlux extends BlockModel {
 
     public static BlockModelFlux fromJson(String modelJson, String modelName, int rotXZ) {
@@ -26,10 +28,32 @@ public class BlockModelFlux extends BlockModel {
     }
 
     public static final boolean useIndices = !RuntimeInfo.useSharedIndices;
+
+    // 4 vertices of x, y, z, colour and uv index
+    private static final int FLOATS_PER_FACE = 4 * 5;
+
+    // vertex colour channels by ao id and light level, index is aoId << 4 | level
+    private static final int[] BLOCK_LIGHT_CHANNEL = new int[64];
+    private static final int[] SKY_LIGHT_CHANNEL = new int[64];
+
+    static {
+        for (int aoId = 0; aoId < 4; aoId++) {
+            final float subAO = aoId / 4.0f + 0.25f;
+            for (int level = 0; level < 16; level++) {
+                BLOCK_LIGHT_CHANNEL[aoId << 4 | level] = (int) (17f * level * subAO);
+                SKY_LIGHT_CHANNEL[aoId << 4 | level] = level * (int) (subAO * 17f);
+            }
+        }
+    }
     public transient String modelName;
     public transient int rotXZ;
-    public transient BlockModelFluxCuboid.Face[] allFaces;
+    public transient BakedGeometry geometry;
+    /** 4 uv indices per face of the geometry */
+    public transient int[] uvIndices;
     public transient Boolean canGreedyCombine;
+    /** whether the cuboids are rotated by rotXZ already, rotated cuboids may be shared with other models */
+    public transient boolean cuboidsRotated = false;
+    public transient volatile boolean baked = false;
     public transient boolean initialized = false;
 
     public String parent;
@@ -39,6 +63,18 @@ public class BlockModelFlux extends BlockModel {
     public BlockModelFlux() {
     }
 
+    /**
+     * Creates a child of a model which only replaces its textures, the cuboids are
+     * inherited from the parent when the model is baked
+     * @param textures copied, the textures themselves are shared
+     */
+    public BlockModelFlux(String modelName, int rotXZ, String parent, OrderedMap<String, BlockModelJsonTexture> textures) {
+        this.modelName = modelName;
+        this.rotXZ = rotXZ;
+        this.parent = parent;
+        this.textures = textures == null ? null : new OrderedMap<>(textures);
+    }
+
     private static boolean endsWithOnce(String string, String endsWith) {
         return string.indexOf(endsWith) == string.length() - endsWith.length();
     }
@@ -70,159 +106,94 @@ public class BlockModelFlux extends BlockModel {
         return textures.values().iterator().next();
     }
     
+    /**
+     * Bakes the model if that did not happen yet and adds its textures to the
+     * block atlas, this has to be called from the render thread
+     */
     public void initialize() {
+        try (StartupTracer.Span ignored = TRACER.begin("model", () -> modelName + "@" + rotXZ)) {
+            bake();
+            initializeTextures();
+        }
+    }
+
+    /**
+     * Inherits from the parent, rotates and bakes the geometry without touching any
+     * textures. This is safe to call from any thread once the parent is baked
+     */
+    public synchronized void bake() {
+        if (baked) {
+            return;
+        }
+        try (StartupTracer.Span ignored = TRACER.begin("model", () -> "bake " + modelName + "@" + rotXZ)) {
+            bakeModel();
+        }
+    }
+
+    /**
+     * Everything which may fail runs on locals first, the model is only changed
+     * once its geometry was baked, so a failed bake can simply be tried again
+     */
+    private void bakeModel() {
 
         BlockModelFlux parent = this.parent == null ? null : (BlockModelFlux) GameSingletons.blockModelInstantiator.getInstance(this.parent, this.rotXZ);
 
+        BlockModelFluxCuboid[] cuboids = this.cuboids;
+        boolean cuboidsRotated = this.cuboidsRotated;
+        OrderedMap<String, BlockModelJsonTexture> textures = this.textures;
+
         if (parent != null) {
 
-            if(!parent.initialized) {
-                parent.initialize();
-                GameLoader.LOGGER.warn("parent '{}' was not initialized, initializing now", this.parent);
+            if(!parent.baked) {
+                parent.bake();
+                GameLoader.LOGGER.warn("parent '{}' was not baked, baking now", this.parent);
             }
 
-            Json json = new Json();
-            json.setTypeName(null);
-
-            if (this.cuboids == null && parent.cuboids != null) {
-                this.cuboids = json.fromJson(parent.cuboids.getClass(), json.toJson(parent.cuboids));
+            // inherited cuboids and textures are shared with the parent, which
+            // rotated its cuboids for the same rotation already
+            if (cuboids == null && parent.cuboids != null) {
+                cuboids = parent.cuboids;
+                cuboidsRotated = true;
+                if (textures == null && parent.textures != null) {
+                    textures = parent.textures;
+                }
+                if (parent.textures != null) {
+                    this.cuboids = cuboids;
+                    this.cuboidsRotated = true;
+                    this.textures = textures;
+                    inheritGeometry(parent);
+                    baked = true;
+                    return;
+                }
             }
 
-            if (this.textures == null && parent.textures != null) {
-                this.textures = json.fromJson(parent.textures.getClass(), json.toJson(parent.textures));
+            if (textures == null && parent.textures != null) {
+                textures = parent.textures;
             }
 
         }
 
-        if (this.textures != null) {
-            for (final BlockModelJsonTexture t : this.textures.values()) {
-                if (t.fileName != null) {
-                    t.uv = ChunkShader.addToAllBlocksTexture(t);
-                }
-            }
+        if (cuboids != null && !cuboidsRotated) {
+            cuboids = BlockModelFluxCuboid.rotate(cuboids, rotXZ);
+            cuboidsRotated = true;
         }
 
-        if(cuboids != null && textures != null) {
-            List<BlockModelFluxCuboid.Face> faces = new ArrayList<>();
-            for (BlockModelFluxCuboid c : this.cuboids) {
+        BakedGeometry geometry = BakedGeometry.EMPTY;
+        if (cuboids != null && textures != null) {
+            List<BakedFace> faces = new ArrayList<>();
+            for (BlockModelFluxCuboid c : cuboids) {
+                c.initialize(this, faces);
+            }
+            geometry = BakedGeometry.intern(faces);
+        }
 
-                final float boundsX1 = c.localBounds[0];
-                final float boundsZ1 = c.localBounds[2];
-                final float boundsX2 = c.localBounds[3];
-                final float boundsZ2 = c.localBounds[5];
-
-                BlockModelFluxCuboid.Face tmpNegX = c.faces.get("localNegX");
-                BlockModelFluxCuboid.Face tmpPosX = c.faces.get("localPosX");
-                BlockModelFluxCuboid.Face tmpNegY = c.faces.get("localNegY");
-                BlockModelFluxCuboid.Face tmpPosY = c.faces.get("localPosY");
-                BlockModelFluxCuboid.Face tmpNegZ = c.faces.get("localNegZ");
-                BlockModelFluxCuboid.Face tmpPosZ = c.faces.get("localPosZ");
-
-                // rotate model
-                switch (rotXZ) {
-                    case 90:{
-                        c.localBounds[0] = boundsZ1;
-                        c.localBounds[2] = boundsX1;
-                        c.localBounds[3] = boundsZ2;
-                        c.localBounds[5] = boundsX2;
-                        c.faces.clear();
-                        if (tmpPosX != null) {
-                            c.faces.put("localPosZ", tmpPosX);
-                        }
-                        if (tmpNegX != null) {
-                            c.faces.put("localNegZ", tmpNegX);
-                        }
-                        if (tmpNegY != null) {
-                            tmpNegY.uvRotation = (tmpNegY.uvRotation - 90 + 360) % 360;
-                            c.faces.put("localNegY", tmpNegY);
-                        }
-                        if (tmpPosY != null) {
-                            tmpPosY.uvRotation = (tmpPosY.uvRotation + 90 + 360) % 360;
-                            c.faces.put("localPosY", tmpPosY);
-                        }
-                        if (tmpNegZ != null) {
-                            final float tmpU = tmpPosZ.uv[0];
-                            tmpNegZ.uv[0] = tmpNegZ.uv[2];
-                            tmpNegZ.uv[2] = tmpU;
-                            c.faces.put("localPosX", tmpNegZ);
-                        }
-                        if (tmpPosZ != null) {
-                            c.faces.put("localNegX", tmpPosZ);
-                            break;
-                        }
-                        break;
-                }
-                    case 180: {
-                        final float fxa = 16.0f - boundsX1;
-                        final float fxb = 16.0f - boundsX2;
-                        final float fza = 16.0f - boundsZ1;
-                        final float fzb = 16.0f - boundsZ2;
-                        c.localBounds[0] = Math.min(fxa, fxb);
-                        c.localBounds[2] = Math.min(fza, fzb);
-                        c.localBounds[3] = Math.max(fxa, fxb);
-                        c.localBounds[5] = Math.max(fza, fzb);
-                        c.faces.clear();
-                        if (tmpNegX != null) {
-                            c.faces.put("localPosX", tmpNegX);
-                        }
-                        if (tmpPosX != null) {
-                            c.faces.put("localNegX", tmpPosX);
-                        }
-                        if (tmpNegY != null) {
-                            c.faces.put("localNegY", tmpNegY);
-                        }
-                        if (tmpPosY != null) {
-                            c.faces.put("localPosY", tmpPosY);
-                        }
-                        if (tmpPosZ != null) {
-                            c.faces.put("localNegZ", tmpPosZ);
-                        }
-                        if (tmpNegZ != null) {
-                            c.faces.put("localPosZ", tmpNegZ);
-                            break;
-                        }
-                        break;
-                    }
-                    case 270: {
-                        final float fxa = 16.0f - boundsX1;
-                        final float fxb = 16.0f - boundsX2;
-                        final float fza = 16.0f - boundsZ1;
-                        final float fzb = 16.0f - boundsZ2;
-                        c.localBounds[0] = Math.min(fza, fzb);
-                        c.localBounds[2] = Math.min(fxa, fxb);
-                        c.localBounds[3] = Math.max(fza, fzb);
-                        c.localBounds[5] = Math.max(fxa, fxb);
-                        c.faces.clear();
-                        if (tmpNegX != null) {
-                            c.faces.put("localPosZ", tmpNegX);
-                        }
-                        if (tmpPosX != null) {
-                            c.faces.put("localNegZ", tmpPosX);
-                        }
-                        if (tmpNegY != null) {
-                            tmpNegY.uvRotation = (tmpNegY.uvRotation - 90 + 360) % 360;
-                            c.faces.put("localNegY", tmpNegY);
-                        }
-                        if (tmpPosY != null) {
-                            tmpPosY.uvRotation = (tmpPosY.uvRotation + 90 + 360) % 360;
-                            c.faces.put("localPosY", tmpPosY);
-                        }
-                        if (tmpPosZ != null) {
-                            c.faces.put("localPosX", tmpPosZ);
-                        }
-                        if (tmpNegZ != null) {
-                            final float tmpU2 = tmpPosZ.uv[0];
-                            tmpNegZ.uv[0] = tmpNegZ.uv[2];
-                            tmpNegZ.uv[2] = tmpU2;
-                            c.faces.put("localNegX", tmpNegZ);
-                            break;
-                        }
-                        break;
-                    }
-                }
+        this.cuboids = cuboids;
+        this.cuboidsRotated = cuboidsRotated;
+        this.textures = textures;
+        this.geometry = geometry;
 
-                // init model
-                c.initialize(this, faces);
+        if (cuboids != null && textures != null) {
+            for (BlockModelFluxCuboid c : cuboids) {
                 this.isNegXFaceOccluding |= c.isNegXFaceOccluding;
                 this.isPosXFaceOccluding |= c.isPosXFaceOccluding;
                 this.isNegYFaceOccluding |= c.isNegYFaceOccluding;
@@ -238,7 +209,7 @@ public class BlockModelFlux extends BlockModel {
             }
 
             // cache bounding boxes
-            for (final BlockModelFluxCuboid c : this.cuboids) {
+            for (final BlockModelFluxCuboid c : cuboids) {
                 if (this.boundingBox.max.epsilonEquals(this.boundingBox.min)) {
                     this.boundingBox = c.getBoundingBox();
                 }
@@ -246,10 +217,6 @@ public class BlockModelFlux extends BlockModel {
                     this.boundingBox.ext(c.getBoundingBox());
                 }
             }
-
-            allFaces = faces.toArray(BlockModelFluxCuboid.Face[]::new);
-        } else {
-            allFaces = new BlockModelFluxCuboid.Face[0];
         }
 
         if (cuboids == null || cuboids.length == 0 || boundingBox.max.epsilonEquals(boundingBox.min)) {
@@ -258,90 +225,181 @@ public class BlockModelFlux extends BlockModel {
         }
 
         boundingBox.update();
-        initialized = true;
+        baked = true;
 
-        if(allFaces == null) {
-            throw new IllegalStateException("allFaces == null for " + modelName);
-        }
+    }
 
+    private void inheritGeometry(BlockModelFlux parent) {
+        geometry = parent.geometry;
+        isNegXFaceOccluding = parent.isNegXFaceOccluding;
+        isPosXFaceOccluding = parent.isPosXFaceOccluding;
+        isNegYFaceOccluding = parent.isNegYFaceOccluding;
+        isPosYFaceOccluding = parent.isPosYFaceOccluding;
+        isNegZFaceOccluding = parent.isNegZFaceOccluding;
+        isPosZFaceOccluding = parent.isPosZFaceOccluding;
+        isNegXFacePartOccluding = parent.isNegXFacePartOccluding;
+        isPosXFacePartOccluding = parent.isPosXFacePartOccluding;
+        isNegYFacePartOccluding = parent.isNegYFacePartOccluding;
+        isPosYFacePartOccluding = parent.isPosYFacePartOccluding;
+        isNegZFacePartOccluding = parent.isNegZFacePartOccluding;
+        isPosZFacePartOccluding = parent.isPosZFacePartOccluding;
+        boundingBox.set(parent.boundingBox);
     }
 
-    @Override
-    public void addVertices(final IMeshData meshData, final int bx, final int by, final int bz,  int opaqueBitmask, final short[] blockLightLevels, final int[] skyLightLevels) {
-        meshData.ensureVerticesCapacity(6 * allFaces.length * 7);
+    private void initializeTextures() {
+        if (this.textures != null) {
+            for (final BlockModelJsonTexture t : this.textures.values()) {
+                if (t.fileName != null) {
+                    t.uv = ChunkShader.addToAllBlocksTexture(t);
+                }
+            }
+        }
 
-        IntArray indices = meshData.getIndices();
+        IntArray uvIndices = new IntArray(geometry.faceCount * 4);
+        if(cuboids != null && textures != null) {
+            for (BlockModelFluxCuboid c : this.cuboids) {
+                c.initializeUvs(this, uvIndices);
+            }
+        }
+        if(uvIndices.size != geometry.faceCount * 4) {
+            throw new IllegalStateException("uv indices do not match the geometry of " + modelName);
+        }
 
-        for (final BlockModelFluxCuboid.Face f : allFaces) {
-            if((opaqueBitmask & f.cullingMask) != 0) continue;
+        this.uvIndices = geometry.sortUvIndices(uvIndices.toArray());
+        initialized = true;
+    }
 
-            int aoIdA = 3;
-            int aoIdB = 3;
-            int aoIdC = 3;
-            int aoIdD = 3;
+    @Override
+    public void addVertices(final IMeshData meshData, final int bx, final int by, final int bz,  int opaqueBitmask, final short[] blockLightLevels, final int[] skyLightLevels) {
+        final BakedGeometry geometry = this.geometry;
+        final int faceCount = geometry.faceCount;
+        final float[] positions = geometry.positions;
+        final int[] vertexIndices = geometry.vertexIndices;
+        final int[] aoBitmasks = geometry.aoBitmasks;
+        final AoTable[] aoTables = geometry.aoTables;
+        final int[] bucketMasks = geometry.bucketMasks;
+        final int[] bucketStarts = geometry.bucketStarts;
+        final int[] uvIndices = this.uvIndices;
+
+        // enclosed by opaque blocks, nothing to mesh
+        final int hiddenMask = geometry.hiddenMask;
+        if (faceCount == 0 || (hiddenMask != 0 && (opaqueBitmask & hiddenMask) == hiddenMask)) {
+            return;
+        }
 
-            if (f.ambientocclusion) {
-                aoIdA = (((opaqueBitmask & f.aoBitmaskA1) == 0) ? 1 : 0) + (((opaqueBitmask & f.aoBitmaskA2) == 0) ? 1 : 0) + (((opaqueBitmask & f.aoBitmaskA3) == 0) ? 1 : 0);
-                aoIdB = (((opaqueBitmask & f.aoBitmaskB1) == 0) ? 1 : 0) + (((opaqueBitmask & f.aoBitmaskB2) == 0) ? 1 : 0) + (((opaqueBitmask & f.aoBitmaskB3) == 0) ? 1 : 0);
-                aoIdC = (((opaqueBitmask & f.aoBitmaskC1) == 0) ? 1 : 0) + (((opaqueBitmask & f.aoBitmaskC2) == 0) ? 1 : 0) + (((opaqueBitmask & f.aoBitmaskC3) == 0) ? 1 : 0);
-                aoIdD = (((opaqueBitmask & f.aoBitmaskD1) == 0) ? 1 : 0) + (((opaqueBitmask & f.aoBitmaskD2) == 0) ? 1 : 0) + (((opaqueBitmask & f.aoBitmaskD3) == 0) ? 1 : 0);
+        int visibleFaces = 0;
+        for (int bucket = 0; bucket < bucketMasks.length; bucket++) {
+            if ((opaqueBitmask & bucketMasks[bucket]) == 0) {
+                visibleFaces += bucketStarts[bucket + 1] - bucketStarts[bucket];
             }
+        }
+        if (visibleFaces == 0) {
+            return;
+        }
+
+        // reserve room for every visible face once, then write whole quads
+        meshData.ensureVerticesCapacity(visibleFaces * FLOATS_PER_FACE);
+        final FloatArray vertices = meshData.getVertices();
+        final float[] v = vertices.items;
+        int size = vertices.size;
+
+        // shared indices are not written per model, the index array may not even exist
+        final IntArray indices = BlockModelFlux.useIndices ? meshData.getIndices() : null;
+        final int[] index = BlockModelFlux.useIndices ? indices.ensureCapacity(visibleFaces * 6) : null;
+        int indexSize = BlockModelFlux.useIndices ? indices.size : 0;
+
+        for (int bucket = 0; bucket < bucketMasks.length; bucket++) {
+            if ((opaqueBitmask & bucketMasks[bucket]) != 0) continue;
+
+            for (int face = bucketStarts[bucket]; face < bucketStarts[bucket + 1]; face++) {
+                final AoTable aoTable = aoTables[face];
+                final int aoIds = aoTable != null ? aoTable.lookup(opaqueBitmask) : AoTable.compute(opaqueBitmask, aoBitmasks, face * 12);
+
+                final int p = face * 12;
+                final int corner = face * 4;
+                final int viA = vertexIndices[corner];
+                final int viB = vertexIndices[corner + 1];
+                final int viC = vertexIndices[corner + 2];
+                final int viD = vertexIndices[corner + 3];
+
+                v[size] = bx + positions[p];
+                v[size + 1] = by + positions[p + 1];
+                v[size + 2] = bz + positions[p + 2];
+                v[size + 3] = getColor(aoIds & 3, blockLightLevels[viA], skyLightLevels[viA]);
+                v[size + 4] = (float) uvIndices[corner];
+
+                v[size + 5] = bx + positions[p + 3];
+                v[size + 6] = by + positions[p + 4];
+                v[size + 7] = bz + positions[p + 5];
+                v[size + 8] = getColor((aoIds >>> 2) & 3, blockLightLevels[viB], skyLightLevels[viB]);
+                v[size + 9] = (float) uvIndices[corner + 1];
+
+                v[size + 10] = bx + positions[p + 6];
+                v[size + 11] = by + positions[p + 7];
+                v[size + 12] = bz + positions[p + 8];
+                v[size + 13] = getColor((aoIds >>> 4) & 3, blockLightLevels[viC], skyLightLevels[viC]);
+                v[size + 14] = (float) uvIndices[corner + 2];
+
+                v[size + 15] = bx + positions[p + 9];
+                v[size + 16] = by + positions[p + 10];
+                v[size + 17] = bz + positions[p + 11];
+                v[size + 18] = getColor((aoIds >>> 6) & 3, blockLightLevels[viD], skyLightLevels[viD]);
+                v[size + 19] = (float) uvIndices[corner + 3];
+
+                if (BlockModelFlux.useIndices) {
+                    final int i1 = size / 5;
+                    index[indexSize] = i1;
+                    index[indexSize + 1] = i1 + 1;
+                    index[indexSize + 2] = i1 + 2;
+                    index[indexSize + 3] = i1 + 2;
+                    index[indexSize + 4] = i1 + 3;
+                    index[indexSize + 5] = i1;
+                    indexSize += 6;
+                }
 
-            final float x1 = bx + f.x1;
-            final float y1 = by + f.y1;
-            final float z1 = bz + f.z1;
-            final float x2 = bx + f.x2;
-            final float y2 = by + f.y2;
-            final float z2 = bz + f.z2;
-
-            final float midX1 = bx + f.midX1;
-            final float midY1 = by + f.midY1;
-            final float midZ1 = bz + f.midZ1;
-            final float midX2 = bx + f.midX2;
-            final float midY2 = by + f.midY2;
-            final float midZ2 = bz + f.midZ2;
-
-            final int viA = f.vertexIndexA;
-            final int viB = f.vertexIndexB;
-            final int viC = f.vertexIndexC;
-            final int viD = f.vertexIndexD;
-
-            final int i1 = addVert(meshData, x1, y1, z1, f.uA, f.vA, aoIdA, blockLightLevels[viA], skyLightLevels[viA], f.modelUvIdxA);
-            final int i2 = addVert(meshData, midX1, midY1, midZ1, f.uB, f.vB, aoIdB, blockLightLevels[viB], skyLightLevels[viB], f.modelUvIdxB);
-            final int i3 = addVert(meshData, x2, y2, z2, f.uC, f.vC, aoIdC, blockLightLevels[viC], skyLightLevels[viC], f.modelUvIdxC);
-            final int i4 = addVert(meshData, midX2, midY2, midZ2, f.uD, f.vD, aoIdD, blockLightLevels[viD], skyLightLevels[viD], f.modelUvIdxD);
-
-            if (BlockModelFlux.useIndices) {
-                indices.add(i1);
-                indices.add(i2);
-                indices.add(i3);
-                indices.add(i3);
-                indices.add(i4);
-                indices.add(i1);
+                size += FLOATS_PER_FACE;
             }
+        }
 
+        vertices.size = size;
+        if (BlockModelFlux.useIndices) {
+            indices.size = indexSize;
         }
     }
-    
-    public int addVert(final IMeshData meshData, final float x, final float y, final float z, final float u, final float v, final int aoId, final short blockLight, int skyLight, final int uvIdx) {
+
+    /**
+     * @deprecated the uvs are looked up through the uv index, use
+     * {@link #addVert(IMeshData, float, float, float, int, short, int, int)}, this
+     * will be removed in the next release
+     */
+    @Deprecated
+    public int addVert(final IMeshData meshData, final float x, final float y, final float z, final float u, final float v, final int aoId, final short blockLight, final int skyLight, final int uvIdx) {
+        return addVert(meshData, x, y, z, aoId, blockLight, skyLight, uvIdx);
+    }
+
+    public int addVert(final IMeshData meshData, final float x, final float y, final float z, final int aoId, final short blockLight, final int skyLight, final int uvIdx) {
         FloatArray vertices = meshData.getVertices();
         final int currentVertexIndex = vertices.size / 5;
 
-        final float subAO = aoId / 4.0f + 0.25f;
-        int r = (int) (17f * ((blockLight & 0xF00) >> 8) * subAO);
-        int g = (int) (17f * ((blockLight & 0xF0) >> 4) * subAO);
-        int b = (int) (17f * (blockLight & 0xF) * subAO);
-        skyLight *= (int)(subAO * 17f);
-
         vertices.items[vertices.size] = x;
         vertices.items[vertices.size + 1] = y;
         vertices.items[vertices.size + 2] = z;
-        vertices.items[vertices.size + 3] = Color.toFloatBits(r, g, b, skyLight);
+        vertices.items[vertices.size + 3] = getColor(aoId, blockLight, skyLight);
         vertices.items[vertices.size + 4] = (float) uvIdx;
         vertices.size += 5;
 
         return currentVertexIndex;
     }
+
+    private static float getColor(final int aoId, final short blockLight, final int skyLight) {
+        // sky light levels are 0 to 15
+        final int ao = aoId << 4;
+        final int r = BLOCK_LIGHT_CHANNEL[ao | ((blockLight >> 8) & 0xF)];
+        final int g = BLOCK_LIGHT_CHANNEL[ao | ((blockLight >> 4) & 0xF)];
+        final int b = BLOCK_LIGHT_CHANNEL[ao | (blockLight & 0xF)];
+        final int a = SKY_LIGHT_CHANNEL[ao | (skyLight & 0xF)];
+        return NumberUtils.intToFloatColor((a << 24) | (b << 16) | (g << 8) | r);
+    }
     
     @Override
     public boolean isGreedyCube() {
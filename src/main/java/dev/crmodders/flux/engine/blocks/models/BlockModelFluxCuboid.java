@@ -1,6 +1,7 @@
 package dev.crmodders.flux.engine.blocks.models;
 
 import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.OrderedMap;
 import dev.crmodders.flux.engine.GameLoader;
@@ -23,47 +24,16 @@ public class BlockModelFluxCuboid
         public boolean cullFace;
         public String texture;
         public  int uvRotation;
-        public transient int cullingMask;
-        public  transient float x1;
-        public  transient float y1;
-        public  transient float z1;
-        public  transient float x2;
-        public  transient float y2;
-        public  transient float z2;
-        public  transient float midX1;
-        public  transient float midY1;
-        public  transient float midZ1;
-        public  transient float midX2;
-        public  transient float midY2;
-        public  transient float midZ2;
-        public  transient float uA;
-        public  transient float vA;
-        public  transient float uB;
-        public  transient float vB;
-        public  transient float uC;
-        public  transient float vC;
-        public  transient float uD;
-        public  transient float vD;
-        public  transient int modelUvIdxA;
-        public  transient int modelUvIdxB;
-        public  transient int modelUvIdxC;
-        public  transient int modelUvIdxD;
-        public  transient int vertexIndexA;
-        public  transient int vertexIndexB;
-        public  transient int vertexIndexC;
-        public  transient int vertexIndexD;
-        public  transient int aoBitmaskA1;
-        public  transient int aoBitmaskA2;
-        public  transient int aoBitmaskA3;
-        public  transient int aoBitmaskB1;
-        public  transient int aoBitmaskB2;
-        public  transient int aoBitmaskB3;
-        public  transient int aoBitmaskC1;
-        public  transient int aoBitmaskC2;
-        public  transient int aoBitmaskC3;
-        public  transient int aoBitmaskD1;
-        public  transient int aoBitmaskD2;
-        public  transient int aoBitmaskD3;
+
+        public Face copy() {
+            Face copy = new Face();
+            copy.uv = uv == null ? null : uv.clone();
+            copy.ambientocclusion = ambientocclusion;
+            copy.cullFace = cullFace;
+            copy.texture = texture;
+            copy.uvRotation = uvRotation;
+            return copy;
+        }
     }
 
     public transient boolean isPosXFaceOccluding;
@@ -82,6 +52,95 @@ public class BlockModelFluxCuboid
     public float[] localBounds;
     public OrderedMap<String, Face> faces;
 
+    private static final String[] DIRECTIONS = { "localNegX", "localPosX", "localNegY", "localPosY", "localNegZ", "localPosZ" };
+
+    // for every quarter turn: the direction each direction is rotated to,
+    // the uv rotation added to it and whether its u coordinates are swapped
+    private static final int[][] ROTATED_DIRECTION = {
+            { 0, 1, 2, 3, 4, 5 },
+            { 4, 5, 2, 3, 1, 0 },
+            { 1, 0, 2, 3, 5, 4 },
+            { 5, 4, 2, 3, 0, 1 },
+    };
+    private static final int[][] ROTATED_UV_ROTATION = {
+            { 0, 0, 0, 0, 0, 0 },
+            { 0, 0, -90, 90, 0, 0 },
+            { 0, 0, 0, 0, 0, 0 },
+            { 0, 0, -90, 90, 0, 0 },
+    };
+    private static final boolean[][] ROTATED_U_SWAP = {
+            { false, false, false, false, false, false },
+            { false, false, false, false, true, false },
+            { false, false, false, false, false, false },
+            { false, false, false, false, true, false },
+    };
+
+    private static int getDirectionIndex(String faceDirection) {
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (DIRECTIONS[i].equals(faceDirection)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Rotates cuboids around the y axis without writing to them
+     * @param rotXZ 0, 90, 180 or 270 degrees
+     * @return the cuboids themselves if they are not rotated, else rotated copies
+     */
+    public static BlockModelFluxCuboid[] rotate(BlockModelFluxCuboid[] cuboids, int rotXZ) {
+        int turn = (rotXZ / 90) & 3;
+        if (rotXZ % 90 != 0 || turn == 0) {
+            return cuboids;
+        }
+
+        BlockModelFluxCuboid[] rotated = new BlockModelFluxCuboid[cuboids.length];
+        for (int i = 0; i < cuboids.length; i++) {
+            BlockModelFluxCuboid cuboid = cuboids[i];
+            BlockModelFluxCuboid copy = new BlockModelFluxCuboid();
+
+            final float[] b = cuboid.localBounds;
+            copy.localBounds = b.clone();
+            switch (turn) {
+                case 1 -> {
+                    copy.localBounds[0] = b[2];
+                    copy.localBounds[2] = b[0];
+                    copy.localBounds[3] = b[5];
+                    copy.localBounds[5] = b[3];
+                }
+                case 2 -> {
+                    copy.localBounds[0] = Math.min(16.0f - b[0], 16.0f - b[3]);
+                    copy.localBounds[2] = Math.min(16.0f - b[2], 16.0f - b[5]);
+                    copy.localBounds[3] = Math.max(16.0f - b[0], 16.0f - b[3]);
+                    copy.localBounds[5] = Math.max(16.0f - b[2], 16.0f - b[5]);
+                }
+                case 3 -> {
+                    copy.localBounds[0] = Math.min(16.0f - b[2], 16.0f - b[5]);
+                    copy.localBounds[2] = Math.min(16.0f - b[0], 16.0f - b[3]);
+                    copy.localBounds[3] = Math.max(16.0f - b[2], 16.0f - b[5]);
+                    copy.localBounds[5] = Math.max(16.0f - b[0], 16.0f - b[3]);
+                }
+            }
+
+            copy.faces = new OrderedMap<>(cuboid.faces.size);
+            for (ObjectMap.Entry<String, Face> kf : cuboid.faces) {
+                int direction = getDirectionIndex(kf.key);
+                if (direction < 0 || kf.value == null) {
+                    continue;
+                }
+                Face face = kf.value.copy();
+                face.uvRotation = (face.uvRotation + ROTATED_UV_ROTATION[turn][direction] + 360) % 360;
+                if (ROTATED_U_SWAP[turn][direction]) {
+                    final float u = face.uv[0];
+                    face.uv[0] = face.uv[2];
+                    face.uv[2] = u;
+                }
+                copy.faces.put(DIRECTIONS[ROTATED_DIRECTION[turn][direction]], face);
+            }
+            rotated[i] = copy;
+        }
+        return rotated;
+    }
+
     public BoundingBox getBoundingBox() {
         BoundingBox bb = new BoundingBox();
         bb.min.set(this.localBounds[0] / 16.0f, this.localBounds[1] / 16.0f, this.localBounds[2] / 16.0f);
@@ -90,10 +149,33 @@ public class BlockModelFluxCuboid
         return bb;
     }
 
-    public void initialize(BlockModelFlux model, List<Face> allFaces) {
+    // indices into the face uv of u and v for every corner of a face
+    private static final int[] UV_CORNERS_NEG_X = { 0, 3, 2, 3, 2, 1, 0, 1 };
+    private static final int[] UV_CORNERS_POS_X = { 2, 3, 2, 1, 0, 1, 0, 3 };
+    private static final int[] UV_CORNERS_NEG_Y = { 0, 3, 2, 3, 2, 1, 0, 1 };
+    private static final int[] UV_CORNERS_POS_Y = { 0, 1, 0, 3, 2, 3, 2, 1 };
+    private static final int[] UV_CORNERS_NEG_Z = { 0, 3, 0, 1, 2, 1, 2, 3 };
+    private static final int[] UV_CORNERS_POS_Z = { 0, 3, 2, 3, 2, 1, 0, 1 };
+
+    private static int[] getUvCorners(String faceDirection) {
+        return switch (faceDirection) {
+            case "localNegX" -> UV_CORNERS_NEG_X;
+            case "localPosX" -> UV_CORNERS_POS_X;
+            case "localNegY" -> UV_CORNERS_NEG_Y;
+            case "localPosY" -> UV_CORNERS_POS_Y;
+            case "localNegZ" -> UV_CORNERS_NEG_Z;
+            case "localPosZ" -> UV_CORNERS_POS_Z;
+            default -> null;
+        };
+    }
+
+    /**
+     * Bakes the geometry of the faces of this cuboid, this does not touch any
+     * textures and is safe to call from any thread
+     */
+    public void initialize(BlockModelFlux model, List<BakedFace> faces) {
         for (final ObjectMap.Entry<String, Face> kf : this.faces) {
 
-            boolean isValidFace = true;
             Face f = kf.value;
             if(f == null) {
                 GameLoader.LOGGER.warn("face '{}' of '{}@{}' is null, skipping", kf.key, model.modelName, model.rotXZ);
@@ -116,289 +198,124 @@ public class BlockModelFluxCuboid
             float maxY = Math.max(y1, y2);
             float maxZ = Math.max(z1, z2);
 
-            float uvScale = (float)(ChunkShader.allBlocksTexSize / 16);
-
-            // determine culling flags
-            if (f.cullFace) {
-                f.cullingMask = switch (kf.key) {
-                    case "localNegX" -> AdjacentBitmask.NEG_X;
-                    case "localPosX" -> AdjacentBitmask.POS_X;
-                    case "localNegY" -> AdjacentBitmask.NEG_Y;
-                    case "localPosY" -> AdjacentBitmask.POS_Y;
-                    case "localNegZ" -> AdjacentBitmask.NEG_Z;
-                    case "localPosZ" -> AdjacentBitmask.POS_Z;
-                    default -> throw new IllegalArgumentException("faceDirection is not valid: " + kf.key);
-                };
-            }
-
-            // keep this
-            BlockModelJsonTexture t = model.getTexture(f.texture);
+            int cullingMask;
+            float[] positions;
+            int[] vertexIndices;
+            int[] aoBitmasks;
             switch (kf.key) {
-                case "localNegX":
+                case "localNegX" -> {
                     isNegXFaceOccluding |= minX == 0.0F && minY <= 0.0F && maxY >= 1.0F && minZ <= 0.0F && maxZ >= 1.0F;
                     isNegXFacePartOccluding |= minX == 0.0F;
-                    f.vertexIndexA = VertexIndex.NX_NY_NZ;
-                    f.aoBitmaskA1 = DiagonalBitmask.NEG_X_NEG_Y_NEG_Z;
-                    f.aoBitmaskA2 = DiagonalBitmask.NEG_X_NEG_Y_ZRO_Z;
-                    f.aoBitmaskA3 = DiagonalBitmask.NEG_X_ZRO_Y_NEG_Z;
-                    f.vertexIndexB = VertexIndex.NX_NY_PZ;
-                    f.aoBitmaskB1 = DiagonalBitmask.NEG_X_NEG_Y_POS_Z;
-                    f.aoBitmaskB2 = DiagonalBitmask.NEG_X_NEG_Y_ZRO_Z;
-                    f.aoBitmaskB3 = DiagonalBitmask.NEG_X_ZRO_Y_POS_Z;
-                    f.vertexIndexC = VertexIndex.NX_PY_PZ;
-                    f.aoBitmaskC1 = DiagonalBitmask.NEG_X_POS_Y_POS_Z;
-                    f.aoBitmaskC2 = DiagonalBitmask.NEG_X_POS_Y_ZRO_Z;
-                    f.aoBitmaskC3 = DiagonalBitmask.NEG_X_ZRO_Y_POS_Z;
-                    f.vertexIndexD = VertexIndex.NX_PY_NZ;
-                    f.aoBitmaskD1 = DiagonalBitmask.NEG_X_POS_Y_NEG_Z;
-                    f.aoBitmaskD2 = DiagonalBitmask.NEG_X_POS_Y_ZRO_Z;
-                    f.aoBitmaskD3 = DiagonalBitmask.NEG_X_ZRO_Y_NEG_Z;
-                    f.x1 = x1;
-                    f.y1 = y1;
-                    f.z1 = z1;
-                    f.x2 = x1;
-                    f.y2 = y2;
-                    f.z2 = z2;
-                    f.midX1 = f.x1;
-                    f.midY1 = f.y1;
-                    f.midZ1 = f.z2;
-                    f.midX2 = f.x1;
-                    f.midY2 = f.y2;
-                    f.midZ2 = f.z1;
-                    f.uA = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vA = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uB = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vB = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uC = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vC = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    f.uD = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vD = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    break;
-                case "localPosX":
+                    cullingMask = AdjacentBitmask.NEG_X;
+                    positions = new float[] { x1, y1, z1, x1, y1, z2, x1, y2, z2, x1, y2, z1 };
+                    vertexIndices = new int[] { VertexIndex.NX_NY_NZ, VertexIndex.NX_NY_PZ, VertexIndex.NX_PY_PZ, VertexIndex.NX_PY_NZ };
+                    aoBitmasks = new int[] {
+                            DiagonalBitmask.NEG_X_NEG_Y_NEG_Z, DiagonalBitmask.NEG_X_NEG_Y_ZRO_Z, DiagonalBitmask.NEG_X_ZRO_Y_NEG_Z,
+                            DiagonalBitmask.NEG_X_NEG_Y_POS_Z, DiagonalBitmask.NEG_X_NEG_Y_ZRO_Z, DiagonalBitmask.NEG_X_ZRO_Y_POS_Z,
+                            DiagonalBitmask.NEG_X_POS_Y_POS_Z, DiagonalBitmask.NEG_X_POS_Y_ZRO_Z, DiagonalBitmask.NEG_X_ZRO_Y_POS_Z,
+                            DiagonalBitmask.NEG_X_POS_Y_NEG_Z, DiagonalBitmask.NEG_X_POS_Y_ZRO_Z, DiagonalBitmask.NEG_X_ZRO_Y_NEG_Z
+                    };
+                }
+                case "localPosX" -> {
                     isPosXFaceOccluding |= maxX == 1.0F && minY <= 0.0F && maxY >= 1.0F && minZ <= 0.0F && maxZ >= 1.0F;
                     isPosXFacePartOccluding |= maxX == 1.0F;
-                    f.vertexIndexA = VertexIndex.PX_NY_NZ;
-                    f.aoBitmaskA1 = DiagonalBitmask.POS_X_NEG_Y_NEG_Z;
-                    f.aoBitmaskA2 = DiagonalBitmask.POS_X_NEG_Y_ZRO_Z;
-                    f.aoBitmaskA3 = DiagonalBitmask.POS_X_ZRO_Y_NEG_Z;
-                    f.vertexIndexB = VertexIndex.PX_PY_NZ;
-                    f.aoBitmaskB1 = DiagonalBitmask.POS_X_POS_Y_NEG_Z;
-                    f.aoBitmaskB2 = DiagonalBitmask.POS_X_POS_Y_ZRO_Z;
-                    f.aoBitmaskB3 = DiagonalBitmask.POS_X_ZRO_Y_NEG_Z;
-                    f.vertexIndexC = VertexIndex.PX_PY_PZ;
-                    f.aoBitmaskC1 = DiagonalBitmask.POS_X_POS_Y_POS_Z;
-                    f.aoBitmaskC2 = DiagonalBitmask.POS_X_POS_Y_ZRO_Z;
-                    f.aoBitmaskC3 = DiagonalBitmask.POS_X_ZRO_Y_POS_Z;
-                    f.vertexIndexD = VertexIndex.PX_NY_PZ;
-                    f.aoBitmaskD1 = DiagonalBitmask.POS_X_NEG_Y_POS_Z;
-                    f.aoBitmaskD2 = DiagonalBitmask.POS_X_NEG_Y_ZRO_Z;
-                    f.aoBitmaskD3 = DiagonalBitmask.POS_X_ZRO_Y_POS_Z;
-                    f.x1 = x2;
-                    f.y1 = y1;
-                    f.z1 = z1;
-                    f.x2 = x2;
-                    f.y2 = y2;
-                    f.z2 = z2;
-                    f.midX1 = f.x1;
-                    f.midY1 = f.y2;
-                    f.midZ1 = f.z1;
-                    f.midX2 = f.x1;
-                    f.midY2 = f.y1;
-                    f.midZ2 = f.z2;
-                    f.uA = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vA = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uB = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vB = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    f.uC = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vC = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    f.uD = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vD = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    break;
-                case "localNegY":
+                    cullingMask = AdjacentBitmask.POS_X;
+                    positions = new float[] { x2, y1, z1, x2, y2, z1, x2, y2, z2, x2, y1, z2 };
+                    vertexIndices = new int[] { VertexIndex.PX_NY_NZ, VertexIndex.PX_PY_NZ, VertexIndex.PX_PY_PZ, VertexIndex.PX_NY_PZ };
+                    aoBitmasks = new int[] {
+                            DiagonalBitmask.POS_X_NEG_Y_NEG_Z, DiagonalBitmask.POS_X_NEG_Y_ZRO_Z, DiagonalBitmask.POS_X_ZRO_Y_NEG_Z,
+                            DiagonalBitmask.POS_X_POS_Y_NEG_Z, DiagonalBitmask.POS_X_POS_Y_ZRO_Z, DiagonalBitmask.POS_X_ZRO_Y_NEG_Z,
+                            DiagonalBitmask.POS_X_POS_Y_POS_Z, DiagonalBitmask.POS_X_POS_Y_ZRO_Z, DiagonalBitmask.POS_X_ZRO_Y_POS_Z,
+                            DiagonalBitmask.POS_X_NEG_Y_POS_Z, DiagonalBitmask.POS_X_NEG_Y_ZRO_Z, DiagonalBitmask.POS_X_ZRO_Y_POS_Z
+                    };
+                }
+                case "localNegY" -> {
                     isNegYFaceOccluding |= minX <= 0.0F && maxX >= 1.0F && minY == 0.0F && minZ <= 0.0F && maxZ >= 1.0F;
                     isNegYFacePartOccluding |= minY == 0.0F;
-                    f.vertexIndexA = VertexIndex.NX_NY_NZ;
-                    f.aoBitmaskA1 = DiagonalBitmask.NEG_X_NEG_Y_NEG_Z;
-                    f.aoBitmaskA2 = DiagonalBitmask.NEG_X_NEG_Y_ZRO_Z;
-                    f.aoBitmaskA3 = DiagonalBitmask.ZRO_X_NEG_Y_NEG_Z;
-                    f.vertexIndexB = VertexIndex.PX_NY_NZ;
-                    f.aoBitmaskB1 = DiagonalBitmask.POS_X_NEG_Y_NEG_Z;
-                    f.aoBitmaskB2 = DiagonalBitmask.POS_X_NEG_Y_ZRO_Z;
-                    f.aoBitmaskB3 = DiagonalBitmask.ZRO_X_NEG_Y_NEG_Z;
-                    f.vertexIndexC = VertexIndex.PX_NY_PZ;
-                    f.aoBitmaskC1 = DiagonalBitmask.POS_X_NEG_Y_POS_Z;
-                    f.aoBitmaskC2 = DiagonalBitmask.POS_X_NEG_Y_ZRO_Z;
-                    f.aoBitmaskC3 = DiagonalBitmask.ZRO_X_NEG_Y_POS_Z;
-                    f.vertexIndexD = VertexIndex.NX_NY_PZ;
-                    f.aoBitmaskD1 = DiagonalBitmask.NEG_X_NEG_Y_POS_Z;
-                    f.aoBitmaskD2 = DiagonalBitmask.NEG_X_NEG_Y_ZRO_Z;
-                    f.aoBitmaskD3 = DiagonalBitmask.ZRO_X_NEG_Y_POS_Z;
-                    f.x1 = x1;
-                    f.y1 = y1;
-                    f.z1 = z1;
-                    f.x2 = x2;
-                    f.y2 = y1;
-                    f.z2 = z2;
-                    f.midX1 = f.x2;
-                    f.midY1 = f.y1;
-                    f.midZ1 = f.z1;
-                    f.midX2 = f.x1;
-                    f.midY2 = f.y1;
-                    f.midZ2 = f.z2;
-                    f.uA = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vA = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uB = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vB = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uC = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vC = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    f.uD = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vD = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    break;
-                case "localPosY":
+                    cullingMask = AdjacentBitmask.NEG_Y;
+                    positions = new float[] { x1, y1, z1, x2, y1, z1, x2, y1, z2, x1, y1, z2 };
+                    vertexIndices = new int[] { VertexIndex.NX_NY_NZ, VertexIndex.PX_NY_NZ, VertexIndex.PX_NY_PZ, VertexIndex.NX_NY_PZ };
+                    aoBitmasks = new int[] {
+                            DiagonalBitmask.NEG_X_NEG_Y_NEG_Z, DiagonalBitmask.NEG_X_NEG_Y_ZRO_Z, DiagonalBitmask.ZRO_X_NEG_Y_NEG_Z,
+                            DiagonalBitmask.POS_X_NEG_Y_NEG_Z, DiagonalBitmask.POS_X_NEG_Y_ZRO_Z, DiagonalBitmask.ZRO_X_NEG_Y_NEG_Z,
+                            DiagonalBitmask.POS_X_NEG_Y_POS_Z, DiagonalBitmask.POS_X_NEG_Y_ZRO_Z, DiagonalBitmask.ZRO_X_NEG_Y_POS_Z,
+                            DiagonalBitmask.NEG_X_NEG_Y_POS_Z, DiagonalBitmask.NEG_X_NEG_Y_ZRO_Z, DiagonalBitmask.ZRO_X_NEG_Y_POS_Z
+                    };
+                }
+                case "localPosY" -> {
                     isPosYFaceOccluding |= minX <= 0.0F && maxX >= 1.0F && maxY == 1.0F && minZ <= 0.0F && maxZ >= 1.0F;
                     isPosYFacePartOccluding |= maxY == 1.0F;
-                    f.vertexIndexA = VertexIndex.NX_PY_NZ;
-                    f.aoBitmaskA1 = DiagonalBitmask.NEG_X_POS_Y_NEG_Z;
-                    f.aoBitmaskA2 = DiagonalBitmask.NEG_X_POS_Y_ZRO_Z;
-                    f.aoBitmaskA3 = DiagonalBitmask.ZRO_X_POS_Y_NEG_Z;
-                    f.vertexIndexB = VertexIndex.NX_PY_PZ;
-                    f.aoBitmaskB1 = DiagonalBitmask.NEG_X_POS_Y_POS_Z;
-                    f.aoBitmaskB2 = DiagonalBitmask.NEG_X_POS_Y_ZRO_Z;
-                    f.aoBitmaskB3 = DiagonalBitmask.ZRO_X_POS_Y_POS_Z;
-                    f.vertexIndexC = VertexIndex.PX_PY_PZ;
-                    f.aoBitmaskC1 = DiagonalBitmask.POS_X_POS_Y_POS_Z;
-                    f.aoBitmaskC2 = DiagonalBitmask.POS_X_POS_Y_ZRO_Z;
-                    f.aoBitmaskC3 = DiagonalBitmask.ZRO_X_POS_Y_POS_Z;
-                    f.vertexIndexD = VertexIndex.PX_PY_NZ;
-                    f.aoBitmaskD1 = DiagonalBitmask.POS_X_POS_Y_NEG_Z;
-                    f.aoBitmaskD2 = DiagonalBitmask.POS_X_POS_Y_ZRO_Z;
-                    f.aoBitmaskD3 = DiagonalBitmask.ZRO_X_POS_Y_NEG_Z;
-                    f.x1 = x1;
-                    f.y1 = y2;
-                    f.z1 = z1;
-                    f.x2 = x2;
-                    f.y2 = y2;
-                    f.z2 = z2;
-                    f.midX1 = f.x1;
-                    f.midY1 = f.y1;
-                    f.midZ1 = f.z2;
-                    f.midX2 = f.x2;
-                    f.midY2 = f.y1;
-                    f.midZ2 = f.z1;
-                    f.uA = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vA = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    f.uB = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vB = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uC = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vC = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uD = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vD = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    break;
-                case "localNegZ":
+                    cullingMask = AdjacentBitmask.POS_Y;
+                    positions = new float[] { x1, y2, z1, x1, y2, z2, x2, y2, z2, x2, y2, z1 };
+                    vertexIndices = new int[] { VertexIndex.NX_PY_NZ, VertexIndex.NX_PY_PZ, VertexIndex.PX_PY_PZ, VertexIndex.PX_PY_NZ };
+                    aoBitmasks = new int[] {
+                            DiagonalBitmask.NEG_X_POS_Y_NEG_Z, DiagonalBitmask.NEG_X_POS_Y_ZRO_Z, DiagonalBitmask.ZRO_X_POS_Y_NEG_Z,
+                            DiagonalBitmask.NEG_X_POS_Y_POS_Z, DiagonalBitmask.NEG_X_POS_Y_ZRO_Z, DiagonalBitmask.ZRO_X_POS_Y_POS_Z,
+                            DiagonalBitmask.POS_X_POS_Y_POS_Z, DiagonalBitmask.POS_X_POS_Y_ZRO_Z, DiagonalBitmask.ZRO_X_POS_Y_POS_Z,
+                            DiagonalBitmask.POS_X_POS_Y_NEG_Z, DiagonalBitmask.POS_X_POS_Y_ZRO_Z, DiagonalBitmask.ZRO_X_POS_Y_NEG_Z
+                    };
+                }
+                case "localNegZ" -> {
                     isNegZFaceOccluding |= minX <= 0.0F && maxX >= 1.0F && minY <= 0.0F && maxY >= 1.0F && minZ == 0.0F;
                     isNegZFacePartOccluding |= minZ == 0.0F;
-                    f.vertexIndexA = VertexIndex.NX_NY_NZ;
-                    f.aoBitmaskA1 = DiagonalBitmask.NEG_X_NEG_Y_NEG_Z;
-                    f.aoBitmaskA2 = DiagonalBitmask.ZRO_X_NEG_Y_NEG_Z;
-                    f.aoBitmaskA3 = DiagonalBitmask.NEG_X_ZRO_Y_NEG_Z;
-                    f.vertexIndexB = VertexIndex.NX_PY_NZ;
-                    f.aoBitmaskB1 = DiagonalBitmask.NEG_X_POS_Y_NEG_Z;
-                    f.aoBitmaskB2 = DiagonalBitmask.ZRO_X_POS_Y_NEG_Z;
-                    f.aoBitmaskB3 = DiagonalBitmask.NEG_X_ZRO_Y_NEG_Z;
-                    f.vertexIndexC = VertexIndex.PX_PY_NZ;
-                    f.aoBitmaskC1 = DiagonalBitmask.POS_X_POS_Y_NEG_Z;
-                    f.aoBitmaskC2 = DiagonalBitmask.ZRO_X_POS_Y_NEG_Z;
-                    f.aoBitmaskC3 = DiagonalBitmask.POS_X_ZRO_Y_NEG_Z;
-                    f.vertexIndexD = VertexIndex.PX_NY_NZ;
-                    f.aoBitmaskD1 = DiagonalBitmask.POS_X_NEG_Y_NEG_Z;
-                    f.aoBitmaskD2 = DiagonalBitmask.ZRO_X_NEG_Y_NEG_Z;
-                    f.aoBitmaskD3 = DiagonalBitmask.POS_X_ZRO_Y_NEG_Z;
-                    f.x1 = x1;
-                    f.y1 = y1;
-                    f.z1 = z1;
-                    f.x2 = x2;
-                    f.y2 = y2;
-                    f.z2 = z1;
-                    f.midX1 = f.x1;
-                    f.midY1 = f.y2;
-                    f.midZ1 = f.z1;
-                    f.midX2 = f.x2;
-                    f.midY2 = f.y1;
-                    f.midZ2 = f.z1;
-                    f.uA = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vA = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uB = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vB = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    f.uC = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vC = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    f.uD = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vD = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    break;
-                case "localPosZ":
+                    cullingMask = AdjacentBitmask.NEG_Z;
+                    positions = new float[] { x1, y1, z1, x1, y2, z1, x2, y2, z1, x2, y1, z1 };
+                    vertexIndices = new int[] { VertexIndex.NX_NY_NZ, VertexIndex.NX_PY_NZ, VertexIndex.PX_PY_NZ, VertexIndex.PX_NY_NZ };
+                    aoBitmasks = new int[] {
+                            DiagonalBitmask.NEG_X_NEG_Y_NEG_Z, DiagonalBitmask.ZRO_X_NEG_Y_NEG_Z, DiagonalBitmask.NEG_X_ZRO_Y_NEG_Z,
+                            DiagonalBitmask.NEG_X_POS_Y_NEG_Z, DiagonalBitmask.ZRO_X_POS_Y_NEG_Z, DiagonalBitmask.NEG_X_ZRO_Y_NEG_Z,
+                            DiagonalBitmask.POS_X_POS_Y_NEG_Z, DiagonalBitmask.ZRO_X_POS_Y_NEG_Z, DiagonalBitmask.POS_X_ZRO_Y_NEG_Z,
+                            DiagonalBitmask.POS_X_NEG_Y_NEG_Z, DiagonalBitmask.ZRO_X_NEG_Y_NEG_Z, DiagonalBitmask.POS_X_ZRO_Y_NEG_Z
+                    };
+                }
+                case "localPosZ" -> {
                     isPosZFaceOccluding |= minX <= 0.0F && maxX >= 1.0F && minY <= 0.0F && maxY >= 1.0F && maxZ == 1.0F;
                     isPosZFacePartOccluding |= maxZ == 1.0F;
-                    f.vertexIndexA = VertexIndex.NX_NY_PZ;
-                    f.aoBitmaskA1 = DiagonalBitmask.NEG_X_NEG_Y_POS_Z;
-                    f.aoBitmaskA2 = DiagonalBitmask.ZRO_X_NEG_Y_POS_Z;
-                    f.aoBitmaskA3 = DiagonalBitmask.NEG_X_ZRO_Y_POS_Z;
-                    f.vertexIndexB = VertexIndex.PX_NY_PZ;
-                    f.aoBitmaskB1 = DiagonalBitmask.POS_X_NEG_Y_POS_Z;
-                    f.aoBitmaskB2 = DiagonalBitmask.ZRO_X_NEG_Y_POS_Z;
-                    f.aoBitmaskB3 = DiagonalBitmask.POS_X_ZRO_Y_POS_Z;
-                    f.vertexIndexC = VertexIndex.PX_PY_PZ;
-                    f.aoBitmaskC1 = DiagonalBitmask.POS_X_POS_Y_POS_Z;
-                    f.aoBitmaskC2 = DiagonalBitmask.ZRO_X_POS_Y_POS_Z;
-                    f.aoBitmaskC3 = DiagonalBitmask.POS_X_ZRO_Y_POS_Z;
-                    f.vertexIndexD = VertexIndex.NX_PY_PZ;
-                    f.aoBitmaskD1 = DiagonalBitmask.NEG_X_POS_Y_POS_Z;
-                    f.aoBitmaskD2 = DiagonalBitmask.ZRO_X_POS_Y_POS_Z;
-                    f.aoBitmaskD3 = DiagonalBitmask.NEG_X_ZRO_Y_POS_Z;
-                    f.x1 = x1;
-                    f.y1 = y1;
-                    f.z1 = z2;
-                    f.x2 = x2;
-                    f.y2 = y2;
-                    f.z2 = z2;
-                    f.midX1 = f.x2;
-                    f.midY1 = f.y1;
-                    f.midZ1 = f.z1;
-                    f.midX2 = f.x1;
-                    f.midY2 = f.y2;
-                    f.midZ2 = f.z1;
-                    f.uA = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vA = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uB = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vB = (t.uv[1] + f.uv[3] / 16.0F) / uvScale;
-                    f.uC = (t.uv[0] + f.uv[2] / 16.0F) / uvScale;
-                    f.vC = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    f.uD = (t.uv[0] + f.uv[0] / 16.0F) / uvScale;
-                    f.vD = (t.uv[1] + f.uv[1] / 16.0F) / uvScale;
-                    break;
-                default:
-                    isValidFace = false;
+                    cullingMask = AdjacentBitmask.POS_Z;
+                    positions = new float[] { x1, y1, z2, x2, y1, z2, x2, y2, z2, x1, y2, z2 };
+                    vertexIndices = new int[] { VertexIndex.NX_NY_PZ, VertexIndex.PX_NY_PZ, VertexIndex.PX_PY_PZ, VertexIndex.NX_PY_PZ };
+                    aoBitmasks = new int[] {
+                            DiagonalBitmask.NEG_X_NEG_Y_POS_Z, DiagonalBitmask.ZRO_X_NEG_Y_POS_Z, DiagonalBitmask.NEG_X_ZRO_Y_POS_Z,
+                            DiagonalBitmask.POS_X_NEG_Y_POS_Z, DiagonalBitmask.ZRO_X_NEG_Y_POS_Z, DiagonalBitmask.POS_X_ZRO_Y_POS_Z,
+                            DiagonalBitmask.POS_X_POS_Y_POS_Z, DiagonalBitmask.ZRO_X_POS_Y_POS_Z, DiagonalBitmask.POS_X_ZRO_Y_POS_Z,
+                            DiagonalBitmask.NEG_X_POS_Y_POS_Z, DiagonalBitmask.ZRO_X_POS_Y_POS_Z, DiagonalBitmask.NEG_X_ZRO_Y_POS_Z
+                    };
+                }
+                default -> {
+                    continue;
+                }
             }
 
-            int tmpRotation = f.uvRotation / 90;
-            while(tmpRotation > 0) {
-                float tmpU = f.uA;
-                float tmpV = f.vA;
-                f.uA = f.uB;
-                f.vA = f.vB;
-                f.uB = f.uC;
-                f.vB = f.vC;
-                f.uC = f.uD;
-                f.vC = f.vD;
-                f.uD = tmpU;
-                f.vD = tmpV;
-                tmpRotation--;
+            faces.add(new BakedFace(f.cullFace ? cullingMask : 0, f.ambientocclusion, positions, vertexIndices, aoBitmasks));
+
+        }
+    }
+
+    /**
+     * Adds the 4 uv indices of every face baked by {@link #initialize(BlockModelFlux, List)},
+     * in the same order, the textures of the model have to be in the block atlas
+     */
+    public void initializeUvs(BlockModelFlux model, IntArray uvIndices) {
+        float uvScale = (float)(ChunkShader.allBlocksTexSize / 16);
+        for (final ObjectMap.Entry<String, Face> kf : this.faces) {
+
+            Face f = kf.value;
+            int[] uvCorners = getUvCorners(kf.key);
+            if(f == null || uvCorners == null) {
+                continue;
             }
 
-            f.modelUvIdxA = CustomTextureLoader.createUBOFloatsIdx(f.uA, f.vA);
-            f.modelUvIdxB = CustomTextureLoader.createUBOFloatsIdx(f.uB, f.vB);
-            f.modelUvIdxC = CustomTextureLoader.createUBOFloatsIdx(f.uC, f.vC);
-            f.modelUvIdxD = CustomTextureLoader.createUBOFloatsIdx(f.uD, f.vD);
+            // keep this
+            BlockModelJsonTexture t = model.getTexture(f.texture);
 
-            if (isValidFace) allFaces.add(f);
+            // every 90 degrees of uv rotation shifts the uvs one corner back
+            int rotation = f.uvRotation / 90;
+            for (int corner = 0; corner < 4; corner++) {
+                int uvCorner = Math.floorMod(corner + rotation, 4) * 2;
+                float u = (t.uv[0] + f.uv[uvCorners[uvCorner]] / 16.0F) / uvScale;
+                float v = (t.uv[1] + f.uv[uvCorners[uvCorner + 1]] / 16.0F) / uvScale;
+                uvIndices.add(CustomTextureLoader.createUBOFloatsIdx(u, v));
+            }
 
         }
     }
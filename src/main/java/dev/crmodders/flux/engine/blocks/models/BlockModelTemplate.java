@@ -0,0 +1,51 @@
+package dev.crmodders.flux.engine.blocks.models;
+
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.OrderedMap;
+import finalforeach.cosmicreach.rendering.blockmodels.BlockModelJsonTexture;
+
+/**
+ * A block model as parsed from json, before it is rotated. Templates are parsed
+ * once per model file or registered json and never change, every rotation of
+ * the model is created from the same template
+ */
+public final class BlockModelTemplate {
+
+    private final String parent;
+    private final OrderedMap<String, BlockModelJsonTexture> textures;
+    private final BlockModelFluxCuboid[] cuboids;
+
+    private BlockModelTemplate(String parent, OrderedMap<String, BlockModelJsonTexture> textures, BlockModelFluxCuboid[] cuboids) {
+        this.parent = parent;
+        this.textures = textures;
+        this.cuboids = cuboids;
+    }
+
+    public static BlockModelTemplate fromJson(String modelJson) {
+        Json json = new Json();
+        BlockModelFlux model = json.fromJson(BlockModelFlux.class, modelJson);
+        return new BlockModelTemplate(model.parent, model.textures, model.cuboids);
+    }
+
+    public String getParent() {
+        return parent;
+    }
+
+    /**
+     * Creates the model for one rotation, the textures and unrotated cuboids are
+     * shared with the template, rotated cuboids are copies
+     */
+    public BlockModelFlux instantiate(String modelName, int rotXZ) {
+        BlockModelFlux model = new BlockModelFlux();
+        model.modelName = modelName;
+        model.rotXZ = rotXZ;
+        model.parent = parent;
+        model.textures = textures;
+        if (cuboids != null) {
+            model.cuboids = BlockModelFluxCuboid.rotate(cuboids, rotXZ);
+            model.cuboidsRotated = true;
+        }
+        return model;
+    }
+
+}
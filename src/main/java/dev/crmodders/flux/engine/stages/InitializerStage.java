@@ -0,0 +1,117 @@
+package dev.crmodders.flux.engine.stages;
+
+import dev.crmodders.flux.engine.LoadStage;
+import dev.crmodders.flux.engine.LoaderThreadFactory;
+import dev.crmodders.flux.engine.ThreadSafeInitializer;
+import dev.crmodders.flux.registries.AccessableRegistry;
+import dev.crmodders.flux.tags.Identifier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static dev.crmodders.flux.engine.GameLoader.LOGGER;
+
+/**
+ * Base for the stages running mod initializers. Initializers implementing
+ * {@link ThreadSafeInitializer} run concurrently on a bounded pool as soon as
+ * the initializers they run after have finished, all other initializers run
+ * one after another on the stage thread in registration order
+ */
+public abstract class InitializerStage extends LoadStage {
+
+    protected void runInitializers(AccessableRegistry<Runnable> mods, String label) {
+        Identifier[] modIds = mods.getRegisteredNames();
+        progress2.setup(modIds.length, label);
+
+        Map<Identifier, ThreadSafeInitializer> threadSafe = new LinkedHashMap<>();
+        Map<Identifier, CompletableFuture<Void>> finished = new HashMap<>();
+        for(Identifier modId : modIds) {
+            finished.put(modId, new CompletableFuture<>());
+            if(mods.get(modId) instanceof ThreadSafeInitializer initializer) {
+                threadSafe.put(modId, initializer);
+            }
+        }
+        checkForCycles(threadSafe);
+
+        ExecutorService executor = null;
+        if(!threadSafe.isEmpty()) {
+            int threads = Math.min(Runtime.getRuntime().availableProcessors(), threadSafe.size());
+            executor = Executors.newFixedThreadPool(threads, new LoaderThreadFactory("GameLoader-Init"));
+        }
+
+        try {
+            for(Map.Entry<Identifier, ThreadSafeInitializer> entry : threadSafe.entrySet()) {
+                Identifier modId = entry.getKey();
+                List<CompletableFuture<Void>> required = new ArrayList<>();
+                for(Identifier dependency : entry.getValue().runAfter()) {
+                    if(finished.containsKey(dependency)) {
+                        required.add(finished.get(dependency));
+                    } else {
+                        LOGGER.warn("Initializer '{}' runs after missing initializer '{}'", modId, dependency);
+                    }
+                }
+                CompletableFuture.allOf(required.toArray(CompletableFuture[]::new))
+                        .thenRunAsync(() -> runInitializer(modId, entry.getValue()), executor)
+                        .whenComplete((result, error) -> complete(finished.get(modId), error));
+            }
+
+            for(Identifier modId : modIds) {
+                if(!threadSafe.containsKey(modId)) {
+                    try {
+                        runInitializer(modId, mods.get(modId));
+                        finished.get(modId).complete(null);
+                    } catch (RuntimeException e) {
+                        finished.get(modId).completeExceptionally(e);
+                        throw e;
+                    }
+                }
+            }
+
+            CompletableFuture.allOf(finished.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        } finally {
+            if(executor != null) executor.shutdown();
+        }
+    }
+
+    private void runInitializer(Identifier modId, Runnable runnable) {
+        progress2.increment(modId.name);
+        runnable.run();
+    }
+
+    private static void complete(CompletableFuture<Void> future, Throwable error) {
+        if(error == null) {
+            future.complete(null);
+        } else {
+            future.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        }
+    }
+
+    private static void checkForCycles(Map<Identifier, ThreadSafeInitializer> threadSafe) {
+        Map<Identifier, Integer> state = new HashMap<>();
+        for(Identifier modId : threadSafe.keySet()) {
+            visit(modId, threadSafe, state);
+        }
+    }
+
+    private static void visit(Identifier modId, Map<Identifier, ThreadSafeInitializer> threadSafe, Map<Identifier, Integer> state) {
+        int current = state.getOrDefault(modId, 0);
+        if(current == 2) return;
+        if(current == 1) throw new IllegalStateException("Initializers have cyclic run after constraints involving '" + modId + "'");
+        state.put(modId, 1);
+        for(Identifier dependency : threadSafe.get(modId).runAfter()) {
+            if(threadSafe.containsKey(dependency)) visit(dependency, threadSafe, state);
+        }
+        state.put(modId, 2);
+    }
+
+}
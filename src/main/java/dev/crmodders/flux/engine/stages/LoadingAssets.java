@@ -2,10 +2,11 @@ package dev.crmodders.flux.engine.stages;
 
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.Texture;
-import de.pottgames.tuningfork.SoundBuffer;
+import dev.crmodders.flux.assets.AssetPriority;
 import dev.crmodders.flux.assets.VanillaAssetLocations;
-import dev.crmodders.flux.engine.GameLoader;
+import dev.crmodders.flux.engine.LoadingEngine;
 import dev.crmodders.flux.engine.LoadStage;
+import dev.crmodders.flux.engine.StartupTracer;
 import dev.crmodders.flux.events.OnLoadAssetsEvent;
 import dev.crmodders.flux.events.OnLoadAssetsFinishedEvent;
 import dev.crmodders.flux.localization.TranslationKey;
@@ -24,7 +25,7 @@ public class LoadingAssets extends LoadStage {
     private static final TranslationKey TEXT_LOADING_ASSETS = new TranslationKey("fluxapi:loading_menu.loading_assets");
 
     @Override
-    public void initialize(GameLoader loader) {
+    public void initialize(LoadingEngine loader) {
         super.initialize(loader);
         title = TEXT_TITLE;
     }
@@ -33,15 +34,9 @@ public class LoadingAssets extends LoadStage {
     public void onEvent(OnLoadAssetsEvent event) {
         List<ResourceLocation> textures = new ArrayList<>();
         textures.addAll(VanillaAssetLocations.getInternalFiles("textures/ui", ".png"));
-        textures.addAll(VanillaAssetLocations.getInternalFiles("textures/items", ".png"));
-        textures.addAll(VanillaAssetLocations.getInternalFiles("textures/entities", ".png"));
         textures.addAll(VanillaAssetLocations.getInternalFiles("lang/textures/", ".png"));
-        textures.forEach( location -> LOADER.loadResource(location, Texture.class) );
-
-        List<ResourceLocation> sounds = new ArrayList<>();
-        sounds.addAll(VanillaAssetLocations.getInternalFiles("sounds/", ".ogg"));
-        sounds.addAll(VanillaAssetLocations.getVanillaModFiles("sounds/", ".ogg"));
-        sounds.forEach( location -> LOADER.loadResource(location, SoundBuffer.class) );
+        textures.forEach( location -> LOADER.loadResource(location, Texture.class, AssetPriority.CRITICAL) );
+        // streamed vanilla assets are queued by QueueingStreamedAssets
     }
 
     @Override
@@ -54,10 +49,12 @@ public class LoadingAssets extends LoadStage {
     public List<Runnable> getGlTasks() {
         List<Runnable> tasks = super.getGlTasks();
         AssetManager manager = LOADER.getAssetManager();
-        tasks.add( () -> loader.setupProgressBar(loader.progressBar2, manager.getQueuedAssets(), TEXT_LOADING_ASSETS) );
+        tasks.add( () -> progress2.setup(manager.getQueuedAssets(), TEXT_LOADING_ASSETS) );
         for(int i = 0; i < manager.getQueuedAssets(); i++) {
-            tasks.add( () -> loader.incrementProgress(loader.progressBar2) );
-            tasks.add(manager::update);
+            tasks.add( new StartupTracer.NamedTask("update assets", () -> {
+                manager.update();
+                progress2.increment();
+            }) );
         }
         // let's be safe
         tasks.add(manager::finishLoading);
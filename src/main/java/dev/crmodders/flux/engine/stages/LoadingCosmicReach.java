@@ -5,12 +5,17 @@ import dev.crmodders.flux.FluxSettings;
 import dev.crmodders.flux.assets.VanillaAssetLocations;
 import dev.crmodders.flux.block.DataModBlock;
 import dev.crmodders.flux.block.IModBlock;
-import dev.crmodders.flux.engine.GameLoader;
+import dev.crmodders.flux.engine.LoadingEngine;
 import dev.crmodders.flux.engine.LoadStage;
+import dev.crmodders.flux.engine.LoaderThreadFactory;
+import dev.crmodders.flux.engine.StartupTracer;
 import dev.crmodders.flux.engine.blocks.BlockLoadException;
+import dev.crmodders.flux.engine.blocks.BlockLoader;
+import dev.crmodders.flux.engine.blocks.BlockModelFactory;
 import dev.crmodders.flux.engine.blocks.actions.OnBreakTrigger;
 import dev.crmodders.flux.engine.blocks.actions.OnInteractTrigger;
 import dev.crmodders.flux.engine.blocks.actions.OnPlaceTrigger;
+import dev.crmodders.flux.engine.blocks.models.BakedGeometry;
 import dev.crmodders.flux.events.OnRegisterBlockEvent;
 import dev.crmodders.flux.factories.IFactory;
 import dev.crmodders.flux.localization.TranslationKey;
@@ -19,25 +24,34 @@ import dev.crmodders.flux.tags.Identifier;
 import dev.crmodders.flux.tags.ResourceLocation;
 import finalforeach.cosmicreach.blockentities.BlockEntityCreator;
 import finalforeach.cosmicreach.blockevents.BlockEvents;
-import finalforeach.cosmicreach.items.loot.Loot;
 import org.greenrobot.eventbus.Subscribe;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static dev.crmodders.flux.engine.GameLoader.LOGGER;
+import static dev.crmodders.flux.engine.blocks.AtlasCache.CACHE;
 
 public class LoadingCosmicReach extends LoadStage {
 
     @Override
-    public void initialize(GameLoader loader) {
+    public void initialize(LoadingEngine loader) {
         super.initialize(loader);
+        dependsOn(LoadingAssets.class);
+        dependsOn(Initialize.class);
         title = new TranslationKey("fluxapi:loading_menu.loading_cosmic_reach");
     }
 
     @Subscribe
     public void onEvent(OnRegisterBlockEvent event) {
-        List<String> blockNames = new ArrayList<>();
+        // a vanilla mod replacing a vanilla block uses the same name, load it once
+        Set<String> blockNames = new LinkedHashSet<>();
         for(ResourceLocation internal : VanillaAssetLocations.getInternalFiles("blocks/", ".json")) {
             blockNames.add(internal.name.replace("blocks/", "").replace(".json", ""));
         }
@@ -56,6 +70,8 @@ public class LoadingCosmicReach extends LoadStage {
     public void doStage() {
         super.doStage();
 
+        CACHE.restore();
+
         BlockEvents.initBlockEvents();
         BlockEntityCreator.registerBlockEntityCreators();
 
@@ -66,22 +82,34 @@ public class LoadingCosmicReach extends LoadStage {
         List<IFactory<IModBlock>> blockFactories = new ArrayList<>();
         FluxRegistries.EVENT_BUS.post(new OnRegisterBlockEvent(blockFactories));
 
-        loader.setupProgressBar(loader.progressBar2, blockFactories.size(), new TranslationKey("fluxapi:loading_menu.creating_blocks"));
-        for(IFactory<IModBlock> blockFactory : blockFactories) {
-            loader.incrementProgress(loader.progressBar2);
-            try {
-                IModBlock block = blockFactory.generate();
-                Identifier blockId = loader.blockLoader.loadBlock(block);
+        progress2.setup(blockFactories.size(), new TranslationKey("fluxapi:loading_menu.creating_blocks"));
+
+        // generate blocks and bake models on all cores, commit blocks one after another in registration order
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new LoaderThreadFactory("GameLoader-Blocks"));
+        try {
+            List<CompletableFuture<BlockLoader.StagedBlock>> futures = new ArrayList<>(blockFactories.size());
+            for(IFactory<IModBlock> blockFactory : blockFactories) {
+                futures.add(CompletableFuture.supplyAsync(() -> loader.blockLoader.stageBlock(blockFactory.generate()), executor));
+            }
+
+            BlockLoader.BlockBatch batch = loader.blockLoader.createBatch(futures.size());
+            for(CompletableFuture<BlockLoader.StagedBlock> future : futures) {
+                progress2.increment();
+                try {
+                    batch.add(join(future));
+                } catch (BlockLoadException e) {
+                    batch.failed(e);
+                }
+            }
+            for(Identifier blockId : batch.publish()) {
                 System.out.println(blockId);
-                FluxRegistries.BLOCKS.register(blockId, block);
-            } catch (BlockLoadException e) {
-                LOGGER.error("Cannot load block: \"{}\"", e.blockName, e);
-                loader.blockLoader.errors.add(e);
             }
-        }
-        FluxRegistries.BLOCKS.freeze();
+            FluxRegistries.BLOCKS.freeze();
 
-        loader.blockLoader.registerFinalizers();
+            loader.blockLoader.registerFinalizers(executor);
+        } finally {
+            executor.shutdown();
+        }
         loader.blockLoader.hookOriginalBlockConstants();
     }
 
@@ -94,21 +122,42 @@ public class LoadingCosmicReach extends LoadStage {
         AccessableRegistry<Runnable> blockFinalizers = FluxRegistries.BLOCK_FINALIZERS.access();
         Identifier[] blockStateIds = blockFinalizers.getRegisteredNames();
 
-        tasks.add( () -> loader.setupProgressBar(loader.progressBar2, modelIds.length, "Creating Models") );
+        tasks.add( () -> progress2.setup(modelIds.length, "Creating Models") );
         for(Identifier modelId : modelIds) {
-            tasks.add( () -> loader.incrementProgress(loader.progressBar2, modelId.toString()) );
-            tasks.add( modelFinalizers.get(modelId) );
+            tasks.add( finalizer(modelId, modelFinalizers.get(modelId)) );
         }
+        tasks.add( () -> LOGGER.info("Baked {} models into {} distinct geometries", modelIds.length, BakedGeometry.getInternedCount()) );
 
 
-        tasks.add( () -> loader.setupProgressBar(loader.progressBar2, blockStateIds.length, "Finalizing Blocks") );
+        tasks.add( () -> progress2.setup(blockStateIds.length, "Finalizing Blocks") );
         for(Identifier blockStateId : blockStateIds) {
-            tasks.add( () -> loader.incrementProgress(loader.progressBar2, blockStateId.toString()) );
-            tasks.add( blockFinalizers.get(blockStateId) );
+            tasks.add( finalizer(blockStateId, blockFinalizers.get(blockStateId)) );
         }
 
-        tasks.add(Loot::loadLoot);
+        tasks.add( () -> {
+            BlockModelFactory factory = loader.blockLoader.factory;
+            LOGGER.info("Parsed {} model sources for {} lookups", factory.sources.getMisses(), factory.sources.getHits() + factory.sources.getMisses());
+            factory.sources.trim();
+        } );
+        tasks.add(CACHE::capture);
 
         return tasks;
     }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private Runnable finalizer(Identifier id, Runnable finalizer) {
+        String name = id.toString();
+        return new StartupTracer.NamedTask(name, () -> {
+            finalizer.run();
+            progress2.increment(name);
+        });
+    }
 }
@@ -0,0 +1,29 @@
+package dev.crmodders.flux.engine.stages;
+
+import dev.crmodders.flux.engine.LoadingEngine;
+import dev.crmodders.flux.engine.LoadStage;
+import dev.crmodders.flux.engine.StageOutput;
+import dev.crmodders.flux.localization.TranslationKey;
+import finalforeach.cosmicreach.items.loot.Loot;
+
+/**
+ * Loads the loot tables. Loot only refers to blocks by their ids, so it starts
+ * as soon as the blocks are published and runs while the models and blocks
+ * of {@link LoadingCosmicReach} are still being finalized on the render thread
+ */
+public class LoadingLoot extends LoadStage {
+
+    @Override
+    public void initialize(LoadingEngine loader) {
+        super.initialize(loader);
+        dependsOn(LoadingCosmicReach.class, StageOutput.CPU);
+        title = new TranslationKey("fluxapi:loading_menu.loading_loot");
+    }
+
+    @Override
+    public void doStage() {
+        super.doStage();
+        Loot.loadLoot();
+    }
+
+}
@@ -1,16 +1,15 @@
 package dev.crmodders.flux.engine.stages;
 
 import dev.crmodders.flux.FluxRegistries;
-import dev.crmodders.flux.engine.GameLoader;
-import dev.crmodders.flux.engine.LoadStage;
+import dev.crmodders.flux.engine.LoadingEngine;
 import dev.crmodders.flux.localization.TranslationKey;
-import dev.crmodders.flux.registries.AccessableRegistry;
-import dev.crmodders.flux.tags.Identifier;
 
-public class PostInitialize extends LoadStage {
+public class PostInitialize extends InitializerStage {
     @Override
-    public void initialize(GameLoader loader) {
+    public void initialize(LoadingEngine loader) {
         super.initialize(loader);
+        dependsOn(LoadingCosmicReach.class);
+        dependsOn(LoadingLoot.class);
         title = new TranslationKey("fluxapi:loading_menu.initializing");
     }
 
@@ -18,14 +17,6 @@ public class PostInitialize extends LoadStage {
     public void doStage() {
         super.doStage();
 
-        AccessableRegistry<Runnable> mods = FluxRegistries.ON_POST_INITIALIZE.access();
-        Identifier[] modIds = mods.getRegisteredNames();
-        loader.setupProgressBar(loader.progressBar2, modIds.length, "Initializing Mods: PostInit");
-        for(Identifier modId : modIds) {
-            loader.incrementProgress(loader.progressBar2, modId.name);
-            Runnable runnable = mods.get(modId);
-            runnable.run();
-        }
-
+        runInitializers(FluxRegistries.ON_POST_INITIALIZE.access(), "Initializing Mods: PostInit");
     }
 }
@@ -0,0 +1,57 @@
+package dev.crmodders.flux.engine.stages;
+
+import com.badlogic.gdx.graphics.Texture;
+import de.pottgames.tuningfork.SoundBuffer;
+import dev.crmodders.flux.assets.AssetPriority;
+import dev.crmodders.flux.assets.VanillaAssetLocations;
+import dev.crmodders.flux.engine.LoadingEngine;
+import dev.crmodders.flux.engine.LoadStage;
+import dev.crmodders.flux.localization.TranslationKey;
+import dev.crmodders.flux.tags.ResourceLocation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.crmodders.flux.assets.FluxGameAssetLoader.LOADER;
+
+/**
+ * Finds the vanilla assets which are only streamed once loading finished and
+ * queues them. Nothing loaded before the main menu needs them, so no stage
+ * depends on this one and it runs next to the other stages
+ */
+public class QueueingStreamedAssets extends LoadStage {
+
+    private static final TranslationKey TEXT_TITLE = new TranslationKey("fluxapi:loading_menu.queueing_streamed_assets");
+    private static final TranslationKey TEXT_QUEUEING_ASSETS = new TranslationKey("fluxapi:loading_menu.queueing_assets");
+
+    @Override
+    public void initialize(LoadingEngine loader) {
+        super.initialize(loader);
+        title = TEXT_TITLE;
+    }
+
+    @Override
+    public void doStage() {
+        super.doStage();
+
+        List<ResourceLocation> deferredTextures = new ArrayList<>();
+        deferredTextures.addAll(VanillaAssetLocations.getInternalFiles("textures/items", ".png"));
+        deferredTextures.addAll(VanillaAssetLocations.getInternalFiles("textures/entities", ".png"));
+
+        List<ResourceLocation> sounds = new ArrayList<>();
+        sounds.addAll(VanillaAssetLocations.getInternalFiles("sounds/", ".ogg"));
+        sounds.addAll(VanillaAssetLocations.getVanillaModFiles("sounds/", ".ogg"));
+
+        // the streamer queues are thread safe, nothing here touches the asset manager
+        progress2.setup(deferredTextures.size() + sounds.size(), TEXT_QUEUEING_ASSETS);
+        for(ResourceLocation location : deferredTextures) {
+            LOADER.loadResource(location, Texture.class, AssetPriority.DEFERRED);
+            progress2.increment();
+        }
+        for(ResourceLocation location : sounds) {
+            LOADER.loadResource(location, SoundBuffer.class, AssetPriority.LOW);
+            progress2.increment();
+        }
+    }
+
+}
@@ -0,0 +1,8 @@
+package dev.crmodders.flux.events;
+
+/**
+ * Posted once all deferred and low priority assets were streamed in
+ */
+public class OnAssetStreamingFinishedEvent {
+
+}
@@ -2,7 +2,7 @@ package dev.crmodders.flux.generators;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.JsonWriter;
 import dev.crmodders.flux.engine.blocks.BlockLoader;
 import dev.crmodders.flux.factories.IGenerator;
 import dev.crmodders.flux.tags.Identifier;
@@ -34,6 +34,20 @@ public class BlockEventGenerator implements IGenerator {
 
         @Override
         public void read(Json json, JsonValue jsonValue) {}
+
+        /**
+         * Builds the same json as {@link #write(Json)} in memory
+         */
+        public JsonValue toJsonValue() {
+            JsonValue trigger = new JsonValue(JsonValue.ValueType.object);
+            trigger.addChild("actionId", new JsonValue(actionId.toString()));
+            JsonValue parameters = new JsonValue(JsonValue.ValueType.object);
+            for(String key : this.parameters.keySet()) {
+                parameters.addChild(key, JsonValues.toJsonValue(this.parameters.get(key)));
+            }
+            trigger.addChild("parameters", parameters);
+            return trigger;
+        }
     }
 
     public Identifier blockId;
@@ -67,19 +81,31 @@ public class BlockEventGenerator implements IGenerator {
     @Override
     public void register(BlockLoader loader) {}
 
-    @Override
-    public String generateJson() {
-        Json json = new Json();
-        json.setTypeName(null);
-        OrderedMap<String, Trigger[]> triggers = new OrderedMap<>();
+    /**
+     * Builds the block events json in memory, this is what the BlockLoader reads
+     * the block events from
+     */
+    public JsonValue generateJsonValue() {
+        JsonValue events = new JsonValue(JsonValue.ValueType.object);
+        events.addChild("parent", new JsonValue("base:block_events_default"));
+        events.addChild("stringId", new JsonValue(getEventName()));
+        JsonValue triggers = new JsonValue(JsonValue.ValueType.object);
         for(String triggerName : this.triggers.keySet()) {
-            Trigger[] triggerMap = this.triggers.get(triggerName).toArray(Trigger[]::new);
-            triggers.put(triggerName, triggerMap);
+            JsonValue triggerList = new JsonValue(JsonValue.ValueType.array);
+            for(Trigger trigger : this.triggers.get(triggerName)) {
+                triggerList.addChild(trigger.toJsonValue());
+            }
+            triggers.addChild(triggerName, triggerList);
         }
-        String eventName = getEventName();
-        String triggerJson = json.toJson(triggers);
-        return """
-               {"parent":"base:block_events_default","stringId":"%s","triggers":%s}
-               """.formatted(eventName, triggerJson);
+        events.addChild("triggers", triggers);
+        return events;
+    }
+
+    /**
+     * Only used for debugging and exporting, block events are loaded from {@link #generateJsonValue()}
+     */
+    @Override
+    public String generateJson() {
+        return generateJsonValue().toJson(JsonWriter.OutputType.json);
     }
 }
@@ -1,6 +1,8 @@
 package dev.crmodders.flux.generators;
 
 import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
 import dev.crmodders.flux.engine.blocks.BlockLoader;
 import dev.crmodders.flux.factories.IGenerator;
 import dev.crmodders.flux.tags.Identifier;
@@ -47,6 +49,14 @@ public class BlockGenerator implements IGenerator {
         public String swapGroupId;
         public String dropId;
 
+        /**
+         * Writes all fields that differ from a new State, like {@link Json} does
+         * with prototypes enabled
+         */
+        public JsonValue toJsonValue() {
+            return JsonValues.objectToJsonValue(this);
+        }
+
     }
 
     public Identifier blockId;
@@ -89,13 +99,28 @@ public class BlockGenerator implements IGenerator {
     @Override
     public void register(BlockLoader loader) {}
 
+    /**
+     * Builds the block json in memory, this is what the BlockLoader reads the
+     * block from
+     */
+    public JsonValue generateJsonValue() {
+        JsonValue block = new JsonValue(JsonValue.ValueType.object);
+        block.addChild("stringId", new JsonValue(blockId.toString()));
+        block.addChild("blockEntityId", new JsonValue(blockEntityId));
+        block.addChild("blockEntityParams", JsonValues.toJsonValue(blockEntityParams));
+        JsonValue states = new JsonValue(JsonValue.ValueType.object);
+        for(Map.Entry<String, State> entry : blockStates.entrySet()) {
+            states.addChild(entry.getKey(), entry.getValue().toJsonValue());
+        }
+        block.addChild("blockStates", states);
+        return block;
+    }
+
+    /**
+     * Only used for debugging and exporting, blocks are loaded from {@link #generateJsonValue()}
+     */
     @Override
     public String generateJson() {
-        Json json = new Json();
-        json.setTypeName(null);
-        Json json2 = new Json();
-        return """
-                {"stringId":%s,"blockEntityId":%s,"blockEntityParams":%s,"blockStates":%s}
-                """.formatted(blockId.toString(), blockEntityId, json2.toJson(blockEntityParams), json.toJson(blockStates));
+        return generateJsonValue().toJson(JsonWriter.OutputType.json);
     }
 }
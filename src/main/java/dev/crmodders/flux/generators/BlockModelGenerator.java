@@ -204,8 +204,10 @@ public class BlockModelGenerator implements IGenerator {
         }
     }
 
-    @Override
-    public String generateJson() {
+    /**
+     * Builds the model in memory, this is what the BlockLoader registers
+     */
+    public BlockModelFlux generateModel() {
         BlockModelFlux model = new BlockModelFlux();
         model.textures = new OrderedMap<>();
 
@@ -238,9 +240,16 @@ public class BlockModelGenerator implements IGenerator {
             }
             model.cuboids[i] = cuboid1;
         }
+        return model;
+    }
 
+    /**
+     * Only used for debugging and exporting, models are loaded from {@link #generateModel()}
+     */
+    @Override
+    public String generateJson() {
         Json json = new Json();
         json.setTypeName(null);
-        return json.toJson(model);
+        return json.toJson(generateModel());
     }
 }
@@ -0,0 +1,156 @@
+package dev.crmodders.flux.generators;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import dev.crmodders.flux.tags.Identifier;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds json trees from objects in memory, the same way {@link Json} writes them
+ * without type names. Objects of known types have their fields written like
+ * {@link Json} does, in declaration order, skipping static and transient fields
+ * and fields which are equal to those of a new instance
+ */
+final class JsonValues {
+
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Optional<Object>> PROTOTYPES = new ConcurrentHashMap<>();
+
+    private JsonValues() {
+    }
+
+    /**
+     * Converts a value the way {@link Json#writeValue(Object)} does, types which
+     * are not handled here still go through {@link Json}
+     */
+    static JsonValue toJsonValue(Object value) {
+        if(value == null) return new JsonValue(JsonValue.ValueType.nullValue);
+        if(value instanceof String string) return new JsonValue(string);
+        if(value instanceof Boolean bool) return new JsonValue(bool);
+        if(value instanceof Float || value instanceof Double) return new JsonValue(((Number) value).doubleValue());
+        if(value instanceof Number number) return new JsonValue(number.longValue());
+        if(value instanceof Character character) return new JsonValue(character.toString());
+        if(value instanceof Enum<?> constant) return new JsonValue(constant.name());
+        if(value instanceof Identifier id) {
+            JsonValue identifier = new JsonValue(JsonValue.ValueType.object);
+            identifier.addChild("namespace", new JsonValue(id.namespace));
+            identifier.addChild("name", new JsonValue(id.name));
+            return identifier;
+        }
+
+        if(value.getClass().isArray()) {
+            JsonValue array = new JsonValue(JsonValue.ValueType.array);
+            for(int i = 0, n = java.lang.reflect.Array.getLength(value); i < n; i++) {
+                array.addChild(toJsonValue(java.lang.reflect.Array.get(value, i)));
+            }
+            return array;
+        }
+        if(value instanceof Iterable<?> iterable && (value instanceof Collection<?> || value instanceof Array<?>)) {
+            JsonValue array = new JsonValue(JsonValue.ValueType.array);
+            for(Object element : iterable) {
+                array.addChild(toJsonValue(element));
+            }
+            return array;
+        }
+        if(value instanceof IntArray ints) {
+            JsonValue array = new JsonValue(JsonValue.ValueType.array);
+            for(int i = 0; i < ints.size; i++) {
+                array.addChild(new JsonValue(ints.get(i)));
+            }
+            return array;
+        }
+        if(value instanceof FloatArray floats) {
+            JsonValue array = new JsonValue(JsonValue.ValueType.array);
+            for(int i = 0; i < floats.size; i++) {
+                array.addChild(new JsonValue(floats.get(i)));
+            }
+            return array;
+        }
+        if(value instanceof Map<?, ?> map) {
+            JsonValue object = new JsonValue(JsonValue.ValueType.object);
+            for(Map.Entry<?, ?> entry : map.entrySet()) {
+                object.addChild(String.valueOf(entry.getKey()), toJsonValue(entry.getValue()));
+            }
+            return object;
+        }
+        if(value instanceof ObjectMap<?, ?> map) {
+            JsonValue object = new JsonValue(JsonValue.ValueType.object);
+            for(ObjectMap.Entry<?, ?> entry : map.entries()) {
+                object.addChild(String.valueOf(entry.key), toJsonValue(entry.value));
+            }
+            return object;
+        }
+
+        // anything else is written exactly like Json writes it
+        Json json = new Json();
+        json.setTypeName(null);
+        return new JsonReader().parse(json.toJson(value, value.getClass()));
+    }
+
+    /**
+     * Writes the fields of an object of a known type like {@link Json} does with
+     * prototypes, without going through a string
+     */
+    static JsonValue objectToJsonValue(Object value) {
+        Object prototype = PROTOTYPES.computeIfAbsent(value.getClass(), JsonValues::createPrototype).orElse(null);
+        JsonValue object = new JsonValue(JsonValue.ValueType.object);
+        for(Field field : FIELDS.computeIfAbsent(value.getClass(), JsonValues::getFields)) {
+            try {
+                Object fieldValue = field.get(value);
+                if(prototype != null && Objects.deepEquals(fieldValue, field.get(prototype))) {
+                    continue;
+                }
+                object.addChild(field.getName(), toJsonValue(fieldValue));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot read field " + field.getName() + " of " + value.getClass().getName(), e);
+            }
+        }
+        return object;
+    }
+
+    private static Field[] getFields(Class<?> type) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for(Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(0, current);
+        }
+
+        List<Field> fields = new ArrayList<>();
+        for(Class<?> current : hierarchy) {
+            for(Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields.toArray(Field[]::new);
+    }
+
+    private static Optional<Object> createPrototype(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return Optional.of(constructor.newInstance());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+}
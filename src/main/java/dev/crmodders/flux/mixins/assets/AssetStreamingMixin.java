@@ -0,0 +1,22 @@
+package dev.crmodders.flux.mixins.assets;
+
+import dev.crmodders.flux.FluxConstants;
+import finalforeach.cosmicreach.BlockGame;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import static dev.crmodders.flux.assets.FluxGameAssetLoader.LOADER;
+
+@Mixin(BlockGame.class)
+public class AssetStreamingMixin {
+
+    @Inject(method = "render", at = @At("HEAD"))
+    private void streamAssets(CallbackInfo ci) {
+        if(FluxConstants.FluxHasLoaded) {
+            LOADER.getStreamer().update();
+        }
+    }
+
+}
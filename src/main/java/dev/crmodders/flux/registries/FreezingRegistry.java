@@ -4,12 +4,23 @@ import dev.crmodders.flux.registries.impl.FreezingRegistryImpl;
 import dev.crmodders.flux.registries.impl.RegistryObject;
 import dev.crmodders.flux.tags.Identifier;
 
+import java.util.Map;
+
 public interface FreezingRegistry<T> {
 
     void freeze();
     boolean isFrozen();
     RegistryObject<T> register(Identifier id, T object);
 
+    /**
+     * Registers all objects at once, in the iteration order of the map
+     */
+    default void registerAll(Map<Identifier, ? extends T> objects) {
+        for(Map.Entry<Identifier, ? extends T> entry : objects.entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+    }
+
     AccessableRegistry<T> access() throws NotAccessibleException;
 
     static <T> FreezingRegistry<T> create() {
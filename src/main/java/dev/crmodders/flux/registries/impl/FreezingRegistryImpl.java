@@ -50,6 +50,12 @@ public class FreezingRegistryImpl<T> implements AccessableRegistry<T>, FreezingR
         return new RegistryObject<>(id, this);
     }
 
+    @Override
+    public void registerAll(Map<Identifier, ? extends T> objects) {
+        if (isFrozen) throw new RuntimeException("CANNOT REGISTER AFTER REGISTRY IS FROZEN");
+        this.objects.putAll(objects);
+    }
+
     @Override
     public AccessableRegistry<T> access() throws NotAccessibleException {
         return this;